@@ -0,0 +1,13 @@
+package com.dzieger.collabrium;
+
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+@Configuration
+@Profile("!reactive")
+@EntityScan("com.dzieger.models")
+@EnableJpaRepositories("com.dzieger.repositories")
+public class JpaConfig {
+}
@@ -0,0 +1,88 @@
+package com.dzieger.collabrium;
+
+import com.dzieger.models.DTOs.RegistrationCommand;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Map;
+
+/**
+ * Kafka plumbing for asynchronous registration: the command topic, a producer that waits for every in-sync
+ * replica, and a batch listener container. Connection settings come from the usual {@code spring.kafka.*}.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "collabrium.registration.mode", havingValue = "async")
+public class RegistrationKafkaConfig {
+
+    @Bean
+    public NewTopic registrationTopic(@Value("${collabrium.registration.async.topic:collabrium.registrations}") String topic,
+                                      @Value("${collabrium.registration.async.partitions:6}") int partitions,
+                                      @Value("${collabrium.registration.async.retention-millis:21600000}") long retentionMillis) {
+        return TopicBuilder.name(topic)
+                .partitions(partitions)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(retentionMillis))
+                .build();
+    }
+
+    @Bean
+    public ProducerFactory<String, RegistrationCommand> registrationProducerFactory(KafkaProperties kafkaProperties) {
+        Map<String, Object> properties = kafkaProperties.buildProducerProperties(null);
+        properties.put(ProducerConfig.ACKS_CONFIG, "all");
+        return new DefaultKafkaProducerFactory<>(properties, new StringSerializer(),
+                new JsonSerializer<RegistrationCommand>().noTypeInfo());
+    }
+
+    @Bean
+    public KafkaTemplate<String, RegistrationCommand> registrationKafkaTemplate(
+            ProducerFactory<String, RegistrationCommand> registrationProducerFactory) {
+        return new KafkaTemplate<>(registrationProducerFactory);
+    }
+
+    @Bean
+    public ConsumerFactory<String, RegistrationCommand> registrationConsumerFactory(
+            KafkaProperties kafkaProperties,
+            @Value("${collabrium.registration.async.batch-size:100}") int batchSize) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties(null);
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        // A new consumer group must not skip registrations that were queued before it joined
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return new DefaultKafkaConsumerFactory<>(properties, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(RegistrationCommand.class, false)));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, RegistrationCommand> registrationListenerContainerFactory(
+            ConsumerFactory<String, RegistrationCommand> registrationConsumerFactory,
+            @Value("${collabrium.registration.async.consumers:2}") int consumers) {
+        ConcurrentKafkaListenerContainerFactory<String, RegistrationCommand> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(registrationConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(consumers);
+        // A failed batch (hashing pool busy, database down) is retried as a whole before it is logged and skipped
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, 10)));
+        return factory;
+    }
+}
@@ -0,0 +1,114 @@
+package com.dzieger.collabrium;
+
+import com.dzieger.services.ReadYourWrites;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to the read replicas listed in {@code collabrium.datasource.replica.urls}
+ * and everything else to {@code spring.datasource.url}. Connections are fetched lazily, once the transaction
+ * has marked them read-only, and {@link ReadYourWrites} can pin a read back onto the primary.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnExpression("!'${collabrium.datasource.replica.urls:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                                              @Value("${collabrium.datasource.replica.urls}") List<String> urls,
+                                              @Value("${collabrium.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${collabrium.datasource.replica.password:${spring.datasource.password:}}") String password,
+                                              @Value("${collabrium.datasource.replica.maximum-pool-size:20}") int maximumPoolSize) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        logger.info("Routing read-only transactions to {} replica(s)", replicas.size());
+        return new ReplicaDataSource(primaryDataSource, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    /**
+     * Round-robins connections across the replica pools, or hands out a primary connection while
+     * {@link ReadYourWrites#isPrimaryRequired()}.
+     */
+    public static class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+        private final DataSource primary;
+        private final List<HikariDataSource> replicas;
+        private final AtomicInteger next = new AtomicInteger();
+
+        ReplicaDataSource(DataSource primary, List<HikariDataSource> replicas) {
+            this.primary = primary;
+            this.replicas = List.copyOf(replicas);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return target().getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return target().getConnection(username, password);
+        }
+
+        private DataSource target() {
+            if (ReadYourWrites.isPrimaryRequired()) {
+                return primary;
+            }
+            return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+        }
+
+        @Override
+        public void close() {
+            replicas.forEach(HikariDataSource::close);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.dzieger.collabrium;
+
+import com.dzieger.models.DTOs.AvailabilityDTO;
+import com.dzieger.models.DTOs.LoginDTO;
+import com.dzieger.models.DTOs.TokenDTO;
+import com.dzieger.models.DTOs.UserRegisterDTO;
+import com.dzieger.security.JwtUtil;
+import com.dzieger.security.TokenVerifier;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs the token, JSON and BCrypt code paths against in-memory fixtures before the instance takes traffic,
+ * so the JIT has compiled them by the time real requests arrive. Runners finish before Spring Boot publishes
+ * {@code ReadinessState.ACCEPTING_TRAFFIC}, so the readiness probe keeps reporting {@code REFUSING_TRAFFIC}
+ * until this is done. Nothing touches the database, and the synthetic tokens are evicted afterwards; they do
+ * show up in the instance's token timers.
+ */
+@Component
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUpRunner.class);
+    private static final String USERNAME = "warm-up";
+    private static final String PASSWORD = "warm-up-password";
+
+    private final JwtUtil jwtUtil;
+    private final TokenVerifier tokenVerifier;
+    private final ObjectMapper objectMapper;
+    private final PasswordEncoder passwordEncoder;
+    private final boolean enabled;
+    private final int tokenCycles;
+    private final int passwordChecks;
+    private final long maxMillis;
+    private volatile boolean complete;
+
+    public WarmUpRunner(JwtUtil jwtUtil, TokenVerifier tokenVerifier, ObjectMapper objectMapper, PasswordEncoder passwordEncoder,
+                        @Value("${collabrium.warmup.enabled:true}") boolean enabled,
+                        @Value("${collabrium.warmup.token-cycles:5000}") int tokenCycles,
+                        @Value("${collabrium.warmup.password-checks:4}") int passwordChecks,
+                        @Value("${collabrium.warmup.max-millis:20000}") long maxMillis) {
+        this.jwtUtil = jwtUtil;
+        this.tokenVerifier = tokenVerifier;
+        this.objectMapper = objectMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.enabled = enabled;
+        this.tokenCycles = tokenCycles;
+        this.passwordChecks = passwordChecks;
+        this.maxMillis = maxMillis;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            complete = true;
+            return;
+        }
+        logger.info("Warming up before accepting traffic");
+        long start = System.currentTimeMillis();
+        long deadline = start + maxMillis;
+        int cycles = 0;
+        int checks = 0;
+        try {
+            List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("USER"));
+            UUID userId = UUID.randomUUID();
+            // Each token differs by its version, so every verification misses the cache and checks the signature
+            for (; cycles < tokenCycles && System.currentTimeMillis() < deadline; cycles++) {
+                String token = jwtUtil.generateToken(userId, USERNAME, cycles, authorities);
+                tokenVerifier.verify(token);
+                jwtUtil.verify(token);
+                roundTrip(token, cycles);
+            }
+
+            String hash = passwordEncoder.encode(PASSWORD);
+            for (; checks < passwordChecks && System.currentTimeMillis() < deadline; checks++) {
+                passwordEncoder.matches(PASSWORD, hash);
+            }
+        } catch (RuntimeException | JsonProcessingException e) {
+            // A cold instance is still better than one that never becomes ready
+            logger.warn("Warm-up stopped early", e);
+        } finally {
+            tokenVerifier.evictAll();
+            complete = true;
+        }
+        logger.info("Warm-up finished in {} ms with {} token cycles and {} password checks",
+                System.currentTimeMillis() - start, cycles, checks);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private void roundTrip(String token, int cycle) throws JsonProcessingException {
+        String login = objectMapper.writeValueAsString(new LoginDTO(USERNAME, PASSWORD));
+        objectMapper.readValue(login, LoginDTO.class);
+        String register = objectMapper.writeValueAsString(
+                new UserRegisterDTO(USERNAME + cycle, PASSWORD, USERNAME + cycle + "@example.com", "Warm", "Up"));
+        objectMapper.readValue(register, UserRegisterDTO.class);
+        objectMapper.readValue(objectMapper.writeValueAsString(new TokenDTO(token)), TokenDTO.class);
+        objectMapper.writeValueAsString(new AvailabilityDTO(cycle % 2 == 0, true));
+    }
+}
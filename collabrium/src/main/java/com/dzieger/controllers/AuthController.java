@@ -2,41 +2,56 @@ package com.dzieger.controllers;
 
 import com.dzieger.exceptions.InvalidTokenException;
 import com.dzieger.models.AppUser;
+import com.dzieger.models.DTOs.AvailabilityDTO;
 import com.dzieger.models.DTOs.LoginDTO;
 import com.dzieger.models.DTOs.RequestRefreshTokenDTO;
 import com.dzieger.models.DTOs.TokenDTO;
 import com.dzieger.models.DTOs.UserRegisterDTO;
 import com.dzieger.security.JwtUtil;
 import com.dzieger.services.AuthService;
+import com.dzieger.services.AvailabilityService;
+import com.dzieger.services.RegistrationQueue;
 import com.dzieger.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/auth")
 public class AuthController {
 
     private final AuthService authService;
+    private final AvailabilityService availabilityService;
+    // Only present when collabrium.registration.mode=async
+    private final RegistrationQueue registrationQueue;
 
     @Autowired
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, AvailabilityService availabilityService,
+                          ObjectProvider<RegistrationQueue> registrationQueue) {
         this.authService = authService;
+        this.availabilityService = availabilityService;
+        this.registrationQueue = registrationQueue.getIfAvailable();
     }
 
     @PostMapping("/login")
-    public ResponseEntity<TokenDTO> login(@RequestBody LoginDTO credentials) {
-        return ResponseEntity.ok(authService.login(credentials));
+    public ResponseEntity<TokenDTO> login(@RequestBody LoginDTO credentials, HttpServletRequest request) {
+        return ResponseEntity.ok(authService.login(credentials, request.getRemoteAddr()));
     }
 
     @PostMapping("/refresh")
@@ -51,7 +66,19 @@ public class AuthController {
 
     @PostMapping("/register")
     public ResponseEntity<String> register(@RequestBody UserRegisterDTO userInformation) {
+        if (registrationQueue != null) {
+            return ResponseEntity.accepted().body(registrationQueue.submit(userInformation));
+        }
         return ResponseEntity.ok(authService.register(userInformation));
     }
 
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityDTO> availability(@RequestParam(required = false) String username,
+                                                        @RequestParam(required = false) String email) {
+        if (username == null && email == null) {
+            throw new IllegalArgumentException("Provide a username, an email or both");
+        }
+        return ResponseEntity.ok(availabilityService.check(username, email));
+    }
+
 }
@@ -0,0 +1,35 @@
+package com.dzieger.controllers;
+
+import com.dzieger.security.JwkSetProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+@RestController
+public class JwksController {
+
+    private final JwkSetProvider jwkSetProvider;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwkSetProvider jwkSetProvider,
+                          @Value("${collabrium.security.jwks.max-age-seconds:60}") long maxAgeSeconds) {
+        this.jwkSetProvider = jwkSetProvider;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    // A matching If-None-Match is answered with 304 by Spring once the ETag is set on the response
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<String> jwks() {
+        JwkSetProvider.JwkSet jwkSet = jwkSetProvider.current();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .eTag(jwkSet.etag())
+                .body(jwkSet.json());
+    }
+}
@@ -0,0 +1,63 @@
+package com.dzieger.controllers;
+
+import com.dzieger.models.DTOs.AvailabilityDTO;
+import com.dzieger.models.DTOs.LoginDTO;
+import com.dzieger.models.DTOs.TokenDTO;
+import com.dzieger.models.DTOs.UserRegisterDTO;
+import com.dzieger.services.ReactiveAuthService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+@RestController
+@RequestMapping("/auth")
+@Profile("reactive")
+public class ReactiveAuthController {
+
+    private final ReactiveAuthService reactiveAuthService;
+
+    public ReactiveAuthController(ReactiveAuthService reactiveAuthService) {
+        this.reactiveAuthService = reactiveAuthService;
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<TokenDTO>> login(@RequestBody LoginDTO credentials, ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String clientIp = remoteAddress == null ? "unknown" : remoteAddress.getHostString();
+        return reactiveAuthService.login(credentials, clientIp).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<TokenDTO>> refresh(@RequestBody TokenDTO incomingTokenDTO) {
+        return reactiveAuthService.refresh(incomingTokenDTO).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<String>> logout(@RequestBody TokenDTO tokenDTO) {
+        return reactiveAuthService.logout(tokenDTO).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<String>> register(@RequestBody UserRegisterDTO userInformation) {
+        return reactiveAuthService.register(userInformation).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/availability")
+    public Mono<ResponseEntity<AvailabilityDTO>> availability(@RequestParam(required = false) String username,
+                                                              @RequestParam(required = false) String email) {
+        if (username == null && email == null) {
+            return Mono.error(new IllegalArgumentException("Provide a username, an email or both"));
+        }
+        return reactiveAuthService.availability(username, email).map(ResponseEntity::ok);
+    }
+
+}
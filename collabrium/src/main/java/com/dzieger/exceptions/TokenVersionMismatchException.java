@@ -0,0 +1,12 @@
+package com.dzieger.exceptions;
+
+public class TokenVersionMismatchException extends InvalidTokenException {
+
+    public TokenVersionMismatchException(String message) {
+        super(message);
+    }
+
+    public TokenVersionMismatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
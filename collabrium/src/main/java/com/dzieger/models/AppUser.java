@@ -21,23 +21,29 @@ public class AppUser {
     @Column(nullable = false)
     private String username;
 
+    // Generated by the database from username; lookups and the unique index go through it
+    @Column(name = "username_lower", insertable = false, updatable = false)
+    private String usernameLower;
+
     @Column(nullable = false)
     private String password;
 
     @Column(nullable = false)
     private String email;
 
+    @Column(name = "email_lower", insertable = false, updatable = false)
+    private String emailLower;
+
     @Column(nullable = false)
     private String firstName;
 
     @Column(nullable = false)
     private String lastName;
 
-    @OneToMany(mappedBy = "appUser", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "appUser", fetch = FetchType.LAZY)
     private List<UserRole> roles = new ArrayList<>();
 
     @Column(nullable = false)
-    @Version
     private int tokenVersion;
 
     public AppUser() {
@@ -0,0 +1,73 @@
+package com.dzieger.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+public final class AuthPrincipalView {
+
+    private final UUID id;
+    private final String username;
+    private final String passwordHash;
+    private final int tokenVersion;
+    private final List<String> roleNames;
+
+    public AuthPrincipalView(UUID id, String username, String passwordHash, int tokenVersion, List<String> roleNames) {
+        this.id = id;
+        this.username = username;
+        this.passwordHash = passwordHash;
+        this.tokenVersion = tokenVersion;
+        this.roleNames = List.copyOf(roleNames);
+    }
+
+    /**
+     * Folds the rows of a user/role join, one row per role with the role id last, into a single view.
+     */
+    public static Optional<AuthPrincipalView> fromRows(List<Object[]> rows, Function<UUID, String> roleNames) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Object[] first = rows.get(0);
+        List<String> names = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[4] != null) {
+                names.add(roleNames.apply((UUID) row[4]));
+            }
+        }
+        return Optional.of(new AuthPrincipalView((UUID) first[0], (String) first[1], (String) first[2],
+                (Integer) first[3], names));
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public List<String> getRoleNames() {
+        return roleNames;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthPrincipalView{" +
+                "id=" + id +
+                ", username='" + username + '\'' +
+                ", tokenVersion=" + tokenVersion +
+                ", roleNames=" + roleNames +
+                '}';
+    }
+}
@@ -0,0 +1,13 @@
+package com.dzieger.models.DTOs;
+
+/**
+ * A registration accepted by the endpoint and waiting on Kafka to be persisted. The password is still in
+ * the clear; it is only hashed by the consumer.
+ */
+public record RegistrationCommand(String username, String password, String email, String firstName, String lastName) {
+
+    public static RegistrationCommand of(UserRegisterDTO userRegisterDTO) {
+        return new RegistrationCommand(userRegisterDTO.getUsername(), userRegisterDTO.getPassword(),
+                userRegisterDTO.getEmail(), userRegisterDTO.getFirstName(), userRegisterDTO.getLastName());
+    }
+}
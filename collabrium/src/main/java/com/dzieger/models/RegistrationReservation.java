@@ -0,0 +1,38 @@
+package com.dzieger.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "registration_reservations")
+public class RegistrationReservation {
+
+    @Id
+    @Column(name = "username_lower")
+    private String usernameLower;
+
+    @Column(name = "email_lower", nullable = false)
+    private String emailLower;
+
+    @Column(name = "reserved_at", nullable = false)
+    private Instant reservedAt;
+
+    public RegistrationReservation() {
+    }
+
+    public String getUsernameLower() {
+        return usernameLower;
+    }
+
+    public String getEmailLower() {
+        return emailLower;
+    }
+
+    public Instant getReservedAt() {
+        return reservedAt;
+    }
+}
@@ -17,7 +17,14 @@ public class Role {
     @Column(nullable = false)
     private String name;
 
-    @OneToMany(mappedBy = "role", fetch = FetchType.EAGER)
+    // Generated by the database from name; lookups and the unique index go through it
+    @Column(name = "name_lower", insertable = false, updatable = false)
+    private String nameLower;
+
+    @Column(unique = true)
+    private Integer code;
+
+    @OneToMany(mappedBy = "role", fetch = FetchType.LAZY)
     private List<UserRole> userRoles = new ArrayList<>();
 
 
@@ -44,6 +51,14 @@ public class Role {
         this.name = name;
     }
 
+    public Integer getCode() {
+        return code;
+    }
+
+    public void setCode(Integer code) {
+        this.code = code;
+    }
+
     public List<UserRole> getUserRoles() {
         return userRoles;
     }
@@ -0,0 +1,130 @@
+package com.dzieger.repositories;
+
+import com.dzieger.models.AuthPrincipalView;
+import com.dzieger.services.RoleRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of the {@link UserRepository} queries used for authentication, over the same
+ * tables the JPA entities map to.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveUserRepository {
+
+    private final DatabaseClient databaseClient;
+    private final String users;
+    private final String roles;
+    private final String userRoles;
+
+    public ReactiveUserRepository(DatabaseClient databaseClient,
+                                  @Value("${spring.jpa.properties.hibernate.default_schema:collabrium}") String schema) {
+        this.databaseClient = databaseClient;
+        this.users = schema + ".users";
+        this.roles = schema + ".roles";
+        this.userRoles = schema + ".user_roles";
+    }
+
+    public Mono<AuthPrincipalView> findAuthPrincipalByUsername(String username) {
+        return databaseClient.sql("select u.id, u.username, u.password, u.token_version, r.name from " + users + " u "
+                        + "left join " + userRoles + " ur on ur.user_id = u.id "
+                        + "left join " + roles + " r on r.id = ur.role_id where u.username_lower = lower(:username)")
+                .bind("username", username)
+                .map((row, metadata) -> new Object[]{row.get("id", UUID.class), row.get("username", String.class),
+                        row.get("password", String.class), row.get("token_version", Integer.class),
+                        row.get("name", String.class)})
+                .all()
+                .collectList()
+                .flatMap(rows -> {
+                    if (rows.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    Object[] first = rows.get(0);
+                    List<String> roleNames = new ArrayList<>(rows.size());
+                    for (Object[] row : rows) {
+                        if (row[4] != null) {
+                            roleNames.add((String) row[4]);
+                        }
+                    }
+                    return Mono.just(new AuthPrincipalView((UUID) first[0], (String) first[1], (String) first[2],
+                            (Integer) first[3], roleNames));
+                });
+    }
+
+    public Flux<RoleRegistry.RoleInfo> findCodedRoles() {
+        return databaseClient.sql("select id, name, code from " + roles + " where code is not null")
+                .map((row, metadata) -> new RoleRegistry.RoleInfo(row.get("code", Integer.class), row.get("id", UUID.class),
+                        row.get("name", String.class).intern()))
+                .all();
+    }
+
+    public Mono<Integer> findTokenVersionById(UUID id) {
+        return databaseClient.sql("select token_version from " + users + " where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> row.get("token_version", Integer.class))
+                .one();
+    }
+
+    public Mono<Long> incrementTokenVersion(UUID id, int expectedTokenVersion) {
+        return databaseClient.sql("update " + users + " set token_version = token_version + 1 "
+                        + "where id = :id and token_version = :expected")
+                .bind("id", id)
+                .bind("expected", expectedTokenVersion)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Boolean> existsByUsername(String username) {
+        return databaseClient.sql("select 1 from " + users + " where username_lower = lower(:username)")
+                .bind("username", username)
+                .map((row, metadata) -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Boolean> existsByEmail(String email) {
+        return databaseClient.sql("select 1 from " + users + " where email_lower = lower(:email)")
+                .bind("email", email)
+                .map((row, metadata) -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    /**
+     * Inserts the user with the named role. Callers run this inside a transaction so both rows land together.
+     */
+    public Mono<Void> insertUser(UUID id, String username, String passwordHash, String email, String firstName,
+                                 String lastName, String roleName) {
+        Mono<Long> user = databaseClient.sql("insert into " + users
+                        + " (id, username, password, email, first_name, last_name, token_version) "
+                        + "values (:id, :username, :password, :email, :firstName, :lastName, 0)")
+                .bind("id", id)
+                .bind("username", username)
+                .bind("password", passwordHash)
+                .bind("email", email)
+                .bind("firstName", firstName)
+                .bind("lastName", lastName)
+                .fetch()
+                .rowsUpdated();
+        Mono<Long> role = databaseClient.sql("insert into " + userRoles + " (id, user_id, role_id) "
+                        + "select :mappingId, :userId, r.id from " + roles + " r where r.name_lower = lower(:role)")
+                .bind("mappingId", UUID.randomUUID())
+                .bind("userId", id)
+                .bind("role", roleName)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(inserted -> inserted == 0
+                        ? Mono.error(new IllegalStateException("Role not found: " + roleName))
+                        : Mono.just(inserted));
+        return user.then(role).then();
+    }
+}
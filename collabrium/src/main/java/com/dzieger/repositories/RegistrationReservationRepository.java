@@ -0,0 +1,31 @@
+package com.dzieger.repositories;
+
+import com.dzieger.models.RegistrationReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface RegistrationReservationRepository extends JpaRepository<RegistrationReservation, String> {
+
+    // Inserts nothing if a user already has the username or email; another reservation for either is a key violation
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into {h-schema}registration_reservations (username_lower, email_lower, reserved_at) " +
+            "select :usernameLower, :emailLower, :reservedAt " +
+            "where not exists (select 1 from {h-schema}users where username_lower = :usernameLower) " +
+            "and not exists (select 1 from {h-schema}users where email_lower = :emailLower)")
+    int reserve(@Param("usernameLower") String usernameLower, @Param("emailLower") String emailLower,
+                @Param("reservedAt") Instant reservedAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RegistrationReservation r where r.reservedAt < :before")
+    int deleteReservedBefore(@Param("before") Instant before);
+
+}
@@ -2,6 +2,8 @@ package com.dzieger.repositories;
 
 import com.dzieger.models.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,5 +11,6 @@ import java.util.UUID;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, UUID> {
-    Optional<Role> findByNameIgnoreCase(String name);
+    @Query("select r from Role r where r.nameLower = lower(:name)")
+    Optional<Role> findByNameIgnoreCase(@Param("name") String name);
 }
@@ -1,15 +1,71 @@
 package com.dzieger.repositories;
 
 import com.dzieger.models.AppUser;
+import com.dzieger.models.AuthPrincipalView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
 
+/**
+ * Lookups run in read-only transactions so they can be served by a read replica, see ReplicaDataSourceConfig.
+ * Usernames and emails match case-insensitively through the indexed lower-case columns.
+ */
 @Repository
-public interface UserRepository extends JpaRepository<AppUser, Long> {
-    Optional<AppUser> findByUsername(String username);
+public interface UserRepository extends JpaRepository<AppUser, UUID> {
+    @Transactional(readOnly = true)
+    @Query("select u from AppUser u where u.usernameLower = lower(:username)")
+    Optional<AppUser> findByUsername(@Param("username") String username);
 
-    Optional<AppUser> findByEmail(String email);
+    @Transactional(readOnly = true)
+    @Query("select u from AppUser u where u.emailLower = lower(:email)")
+    Optional<AppUser> findByEmail(@Param("email") String email);
+
+    @Transactional(readOnly = true)
+    @Query("select u.id, u.username, u.password, u.tokenVersion, ur.role.id from AppUser u " +
+            "left join u.roles ur where u.usernameLower = lower(:username)")
+    List<Object[]> findAuthPrincipalRows(@Param("username") String username);
+
+    default Optional<AuthPrincipalView> findAuthPrincipalByUsername(String username, Function<UUID, String> roleNames) {
+        return AuthPrincipalView.fromRows(findAuthPrincipalRows(username), roleNames);
+    }
+
+    @Transactional(readOnly = true)
+    @Query("select u.tokenVersion from AppUser u where u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("update AppUser u set u.tokenVersion = u.tokenVersion + 1 where u.id = :id and u.tokenVersion = :expected")
+    int incrementTokenVersion(@Param("id") UUID id, @Param("expected") int expectedTokenVersion);
+
+    @Transactional(readOnly = true)
+    // Two indexed lookups rather than an OR, which some planners answer with a scan
+    @Query("select u.username, u.email from AppUser u where u.usernameLower = lower(:username) " +
+            "union all select u.username, u.email from AppUser u where u.emailLower = lower(:email)")
+    List<Object[]> findUsernameAndEmailMatches(@Param("username") String username, @Param("email") String email);
+
+    @Transactional(readOnly = true)
+    @Query("select u.id, u.username, u.email from AppUser u order by u.id")
+    List<Object[]> findIdentityBatch(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("select u.id, u.username, u.email from AppUser u where u.id > :after order by u.id")
+    List<Object[]> findIdentityBatchAfter(@Param("after") UUID after, Pageable pageable);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into {h-schema}users (id, username, password, email, first_name, last_name, token_version) " +
+            "select :id, :username, :password, :email, :firstName, :lastName, 0 " +
+            "where not exists (select 1 from {h-schema}users where username_lower = lower(:username))")
+    int insertIfAbsent(@Param("id") UUID id, @Param("username") String username, @Param("password") String password,
+                       @Param("email") String email, @Param("firstName") String firstName, @Param("lastName") String lastName);
 
 }
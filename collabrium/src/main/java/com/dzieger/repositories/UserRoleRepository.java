@@ -2,10 +2,19 @@ package com.dzieger.repositories;
 
 import com.dzieger.models.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.UUID;
 
 @Repository
 public interface UserRoleRepository extends JpaRepository<UserRole, UUID> {
+
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into {h-schema}user_roles (id, user_id, role_id) " +
+            "select :id, :userId, r.id from {h-schema}roles r where r.name_lower = lower(:role)")
+    int insertByRoleName(@Param("id") UUID id, @Param("userId") UUID userId, @Param("role") String role);
+
 }
@@ -0,0 +1,16 @@
+package com.dzieger.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.UUID;
+
+public record AuthPrincipal(UUID userId, String username, Collection<? extends GrantedAuthority> authorities)
+        implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
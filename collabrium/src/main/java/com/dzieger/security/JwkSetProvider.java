@@ -0,0 +1,111 @@
+package com.dzieger.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders the public halves of the asymmetric keys in the {@link SigningKeyRing} as a JSON Web Key Set.
+ * The document and its ETag are built once per key ring snapshot, so serving it is a volatile read.
+ * HMAC secrets are never published.
+ */
+@Component
+public class JwkSetProvider {
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final SigningKeyRing signingKeyRing;
+    private final ObjectMapper objectMapper;
+    private volatile JwkSet jwkSet;
+
+    public JwkSetProvider(SigningKeyRing signingKeyRing, ObjectMapper objectMapper) {
+        this.signingKeyRing = signingKeyRing;
+        this.objectMapper = objectMapper;
+    }
+
+    public JwkSet current() {
+        SigningKeyRing.Snapshot keys = signingKeyRing.current();
+        JwkSet current = jwkSet;
+        if (current == null || current.keys() != keys) {
+            current = build(keys);
+            jwkSet = current;
+        }
+        return current;
+    }
+
+    private JwkSet build(SigningKeyRing.Snapshot keys) {
+        List<SigningKeyRing.SigningKey> signingKeys = new ArrayList<>(keys.keys().values());
+        signingKeys.sort(Comparator.comparing(SigningKeyRing.SigningKey::kid));
+
+        List<Map<String, String>> jwks = new ArrayList<>();
+        for (SigningKeyRing.SigningKey signingKey : signingKeys) {
+            if (signingKey.isAsymmetric()) {
+                jwks.add(toJwk(signingKey));
+            }
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(Map.of("keys", jwks));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize JWK set", e);
+        }
+        return new JwkSet(keys, json, etag(json));
+    }
+
+    private static Map<String, String> toJwk(SigningKeyRing.SigningKey signingKey) {
+        Map<String, String> jwk = new LinkedHashMap<>();
+        if (signingKey.verificationKey() instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", encode(rsa.getModulus(), 0));
+            jwk.put("e", encode(rsa.getPublicExponent(), 0));
+        } else if (signingKey.verificationKey() instanceof ECPublicKey ec) {
+            int fieldSize = ec.getParams().getCurve().getField().getFieldSize();
+            int length = (fieldSize + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-" + fieldSize);
+            jwk.put("x", encode(ec.getW().getAffineX(), length));
+            jwk.put("y", encode(ec.getW().getAffineY(), length));
+        } else {
+            throw new IllegalStateException("Unsupported public key type for kid " + signingKey.kid());
+        }
+        jwk.put("kid", signingKey.kid());
+        jwk.put("use", "sig");
+        jwk.put("alg", signingKey.algorithm().getValue());
+        return jwk;
+    }
+
+    private static String encode(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        int start = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+        int size = Math.max(length, bytes.length - start);
+        byte[] unsigned = new byte[size];
+        System.arraycopy(bytes, start, unsigned, size - (bytes.length - start), bytes.length - start);
+        return BASE64URL.encodeToString(unsigned);
+    }
+
+    private static String etag(String json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            return '"' + BASE64URL.encodeToString(hash).substring(0, 22) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record JwkSet(SigningKeyRing.Snapshot keys, String json, String etag) {
+    }
+}
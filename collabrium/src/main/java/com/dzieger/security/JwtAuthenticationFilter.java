@@ -2,90 +2,123 @@ package com.dzieger.security;
 
 import com.dzieger.exceptions.InvalidTokenException;
 import com.dzieger.exceptions.TokenExpiredException;
-import com.dzieger.models.AppUser;
 import com.dzieger.services.AuthService;
 import com.dzieger.services.CustomUserDetails;
+import com.dzieger.services.TokenVersionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.Set;
 
 @Component
+@Profile("!reactive")
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtUtil jwtUtil;
+    private final TokenVerifier tokenVerifier;
+    private final TokenVersionRegistry tokenVersionRegistry;
     private final UserDetailsService userDetailsService;
     private final AuthService authService;
-
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService, AuthService authService) {
+    private final boolean statelessPrincipal;
+    private final OutcomeTimer authenticationTimer;
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
+    private final RequestMatcher publicPaths = new OrRequestMatcher(Arrays.stream(SecurityConfig.PUBLIC_PATHS)
+            .map(AntPathRequestMatcher::antMatcher)
+            .toArray(RequestMatcher[]::new));
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenVerifier tokenVerifier, TokenVersionRegistry tokenVersionRegistry, UserDetailsService userDetailsService, AuthService authService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${collabrium.security.stateless-principal:true}") boolean statelessPrincipal) {
         this.jwtUtil = jwtUtil;
+        this.tokenVerifier = tokenVerifier;
+        this.tokenVersionRegistry = tokenVersionRegistry;
         this.userDetailsService = userDetailsService;
         this.authService = authService;
+        this.statelessPrincipal = statelessPrincipal;
+        this.authenticationTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.filter",
+                "Time the JWT filter spends authenticating a request, excluding the rest of the chain",
+                OutcomeTimer.SUCCESS, OutcomeTimer.ANONYMOUS, OutcomeTimer.EXPIRED, OutcomeTimer.INVALID,
+                OutcomeTimer.VERSION_MISMATCH, OutcomeTimer.NOT_FOUND);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return publicPaths.matches(request);
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filter) throws
             IOException, ServletException {
+        long start = System.nanoTime();
+        String outcome = OutcomeTimer.ANONYMOUS;
         String authorizationHeader = request.getHeader("Authorization");
 
-        logger.info("Starting doFilterInternal");
-
+        logger.debug("Starting doFilterInternal");
 
-        String username = null;
-        String token = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            logger.info("Extracting username and token from Authorization header");
-            token = authorizationHeader.substring(7);
-            username = jwtUtil.extractUsername(token);
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            logger.info("Setting authentication context");
-            CustomUserDetails userDetails = (CustomUserDetails) userDetailsService.loadUserByUsername(username);
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String token = authorizationHeader.substring(7);
 
             try {
-                if (jwtUtil.validateToken(token, userDetails.getTokenVersion())) {
-                    logger.info("Token validated for username: {}", username);
-
-                    List<String> authorities = jwtUtil.extractAuthorities(token);
-                    Collection<GrantedAuthority> grantedAuthorities = authorities.stream()
-                            .map(SimpleGrantedAuthority::new)
-                            .collect(Collectors.toList());
-
-                    var authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                long verifyStart = System.nanoTime();
+                VerifiedToken verifiedToken = tokenVerifier.verify(token);
+                ServerTiming.record(ServerTiming.Phase.VERIFY, verifyStart);
+                String username = verifiedToken.getSubject();
+
+                if (jwtUtil.validateToken(verifiedToken, tokenVersionRegistry.getTokenVersion(verifiedToken.getUserId()))) {
+                    logger.debug("Token validated for username: {}", username);
+
+                    UsernamePasswordAuthenticationToken authToken;
+                    if (statelessPrincipal) {
+                        Set<GrantedAuthority> authorities = verifiedToken.getAuthorities();
+                        var principal = new AuthPrincipal(verifiedToken.getUserId(), username, authorities);
+                        authToken = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+                    } else {
+                        CustomUserDetails userDetails = (CustomUserDetails) userDetailsService.loadUserByUsername(username);
+                        authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    }
+                    authToken.setDetails(authenticationDetailsSource.buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    outcome = OutcomeTimer.SUCCESS;
 
-                    logger.info("Authentication context set");
+                    logger.debug("Authentication context set");
                 }
             } catch (TokenExpiredException e) {
+                outcome = OutcomeTimer.EXPIRED;
                 logger.warn("Token has expired");
             } catch (InvalidTokenException e) {
+                outcome = OutcomeTimer.outcomeOf(e);
                 logger.warn("Invalid token");
+            } catch (UsernameNotFoundException e) {
+                outcome = OutcomeTimer.NOT_FOUND;
+                logger.warn("Token subject no longer exists");
             }
         }
+        authenticationTimer.record(outcome, start);
 
-        logger.info("Proceeding with filter chain");
+        logger.debug("Proceeding with filter chain");
         filter.doFilter(request, response);
     }
 
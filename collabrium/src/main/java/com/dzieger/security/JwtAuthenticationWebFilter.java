@@ -0,0 +1,116 @@
+package com.dzieger.security;
+
+import com.dzieger.exceptions.InvalidTokenException;
+import com.dzieger.exceptions.TokenExpiredException;
+import com.dzieger.repositories.ReactiveUserRepository;
+import com.dzieger.services.TokenVersionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reactive equivalent of {@link JwtAuthenticationFilter} with the stateless principal. Token checks are pure
+ * CPU and run inline; only a token version missing from {@link TokenVersionRegistry} costs a non-blocking
+ * query. Requests with a missing or rejected token continue anonymously and are stopped by authorization.
+ */
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationWebFilter.class);
+
+    private final JwtUtil jwtUtil;
+    private final TokenVerifier tokenVerifier;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final OutcomeTimer authenticationTimer;
+    private final ServerWebExchangeMatcher publicPaths = ServerWebExchangeMatchers.pathMatchers(SecurityConfig.PUBLIC_PATHS);
+
+    public JwtAuthenticationWebFilter(JwtUtil jwtUtil, TokenVerifier tokenVerifier, TokenVersionRegistry tokenVersionRegistry,
+                                      ReactiveUserRepository reactiveUserRepository, MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.tokenVerifier = tokenVerifier;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.authenticationTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.filter",
+                "Time the JWT filter spends authenticating a request, excluding the rest of the chain",
+                OutcomeTimer.SUCCESS, OutcomeTimer.ANONYMOUS, OutcomeTimer.EXPIRED, OutcomeTimer.INVALID,
+                OutcomeTimer.VERSION_MISMATCH, OutcomeTimer.NOT_FOUND);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return publicPaths.matches(exchange).flatMap(match -> {
+            if (match.isMatch()) {
+                return chain.filter(exchange);
+            }
+            String authorizationHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+                authenticationTimer.record(OutcomeTimer.ANONYMOUS, System.nanoTime());
+                return chain.filter(exchange);
+            }
+            return authenticate(authorizationHeader.substring(7))
+                    .flatMap(authentication -> chain.filter(exchange)
+                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)))
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)));
+        });
+    }
+
+    private Mono<UsernamePasswordAuthenticationToken> authenticate(String token) {
+        long start = System.nanoTime();
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = tokenVerifier.verify(token);
+        } catch (TokenExpiredException e) {
+            logger.warn("Token has expired");
+            authenticationTimer.record(OutcomeTimer.EXPIRED, start);
+            return Mono.empty();
+        } catch (InvalidTokenException e) {
+            logger.warn("Invalid token");
+            authenticationTimer.record(OutcomeTimer.outcomeOf(e), start);
+            return Mono.empty();
+        }
+
+        return currentTokenVersion(verifiedToken.getUserId())
+                .flatMap(tokenVersion -> {
+                    try {
+                        jwtUtil.validateToken(verifiedToken, tokenVersion);
+                    } catch (InvalidTokenException e) {
+                        logger.warn("Invalid token");
+                        authenticationTimer.record(OutcomeTimer.outcomeOf(e), start);
+                        return Mono.empty();
+                    }
+                    Set<GrantedAuthority> authorities = verifiedToken.getAuthorities();
+                    var principal = new AuthPrincipal(verifiedToken.getUserId(), verifiedToken.getSubject(), authorities);
+                    authenticationTimer.record(OutcomeTimer.SUCCESS, start);
+                    return Mono.just(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+                })
+                .onErrorResume(UsernameNotFoundException.class, e -> {
+                    logger.warn("Token subject no longer exists");
+                    authenticationTimer.record(OutcomeTimer.NOT_FOUND, start);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Integer> currentTokenVersion(UUID userId) {
+        int cached = tokenVersionRegistry.getCachedTokenVersion(userId);
+        if (cached != TokenVersionRegistry.NOT_CACHED) {
+            return Mono.just(cached);
+        }
+        return reactiveUserRepository.findTokenVersionById(userId)
+                .switchIfEmpty(Mono.error(() -> new UsernameNotFoundException("User not found: " + userId)))
+                .map(version -> tokenVersionRegistry.update(userId, version));
+    }
+}
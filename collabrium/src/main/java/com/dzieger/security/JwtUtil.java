@@ -2,112 +2,203 @@ package com.dzieger.security;
 
 import com.dzieger.exceptions.InvalidTokenException;
 import com.dzieger.exceptions.TokenExpiredException;
+import com.dzieger.exceptions.TokenVersionMismatchException;
+import com.dzieger.security.jfr.TokenIssuedEvent;
+import com.dzieger.security.jfr.TokenVerifiedEvent;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
-import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.Claims;
 
 import java.security.Key;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.function.Function;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtUtil {
 
+    static final String ROLES_CLAIM = "roles";
+    static final String AUTHORITIES_CLAIM = "authorities";
+
     private final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
-    private final Key secretKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private final SigningKeyRing signingKeyRing;
+    private final RoleAuthorities roleAuthorities;
+    private final JwtParser jwtParser;
     private final long expiration = 3600000; // 1 hour
+    private final OutcomeTimer parseTimer;
+    private final Timer issueTimer;
+
+    public JwtUtil(SigningKeyRing signingKeyRing, RoleAuthorities roleAuthorities, MeterRegistry meterRegistry) {
+        this.signingKeyRing = signingKeyRing;
+        this.roleAuthorities = roleAuthorities;
+        this.parseTimer = new OutcomeTimer(meterRegistry, "collabrium.jwt.parse",
+                "Full token parse and signature check through jjwt",
+                OutcomeTimer.SUCCESS, OutcomeTimer.EXPIRED, OutcomeTimer.INVALID);
+        this.issueTimer = Timer.builder("collabrium.jwt.issue")
+                .description("Time spent building and signing a token")
+                .register(meterRegistry);
+        this.jwtParser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                SigningKeyRing.SigningKey signingKey = signingKeyRing.findKey(header.getKeyId());
+                if (signingKey == null) {
+                    throw new SignatureException("Unknown signing key: " + header.getKeyId());
+                }
+                return signingKey.verificationKey();
+            }
+        }).build();
+    }
 
-    public String extractUsername(String token) {
-        logger.info("Extracting username from token");
+    /**
+     * Verifies the signature and expiry of the token once and returns the claims we care about.
+     * Callers should hold on to the result instead of re-parsing the token for each claim.
+     */
+    public VerifiedToken verify(String token) {
+        logger.debug("Verifying token");
+        long start = System.nanoTime();
+        TokenVerifiedEvent event = new TokenVerifiedEvent();
+        event.begin();
+        event.source = TokenVerifier.SOURCE_JJWT;
         try {
-            Claims claims = extractAllClaims(token);
-            return claims.getSubject();
-        } catch (JwtException e) {
-            throw new InvalidTokenException("Unable to extract username: Invalid Token", e);
+            VerifiedToken verifiedToken = parse(token);
+            parseTimer.record(OutcomeTimer.SUCCESS, start);
+            event.outcome = OutcomeTimer.SUCCESS;
+            return verifiedToken;
+        } catch (RuntimeException e) {
+            parseTimer.record(OutcomeTimer.outcomeOf(e), start);
+            event.outcome = OutcomeTimer.outcomeOf(e);
+            throw e;
+        } finally {
+            event.commit();
         }
     }
 
-    public int extractTokenVersion(String token) {
-        logger.info("Extracting token version from token");
+    private VerifiedToken parse(String token) {
+        Claims claims;
         try {
-            Claims claims = extractAllClaims(token);
-            return claims.get("tokenVersion", Integer.class);
-        } catch (JwtException e) {
-            throw new InvalidTokenException("Unable to extract token version: Invalid Token", e);
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException e) {
+            throw new TokenExpiredException("Token has expired", e);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Token is invalid", e);
+        }
+
+        String subject = claims.getSubject();
+        String userId = claims.get("userId", String.class);
+        Integer tokenVersion = claims.get("tokenVersion", Integer.class);
+        Date expirationDate = claims.getExpiration();
+        if (subject == null || userId == null || tokenVersion == null || expirationDate == null) {
+            throw new InvalidTokenException("Token is missing required claims");
+        }
+
+        Set<GrantedAuthority> authorities = extractAuthorities(claims);
+        if (authorities == null) {
+            throw new InvalidTokenException("Token carries an unknown role");
+        }
+        try {
+            return new VerifiedToken(UUID.fromString(userId), subject, tokenVersion, authorities, expirationDate.getTime());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Token is invalid", e);
         }
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        Claims claims = extractAllClaims(token);
-        logger.info("Extracting claim from token");
-        return claimsResolver.apply(claims);
+    public String extractUsername(String token) {
+        logger.info("Extracting username from token");
+        return verify(token).getSubject();
     }
 
-    private Claims extractAllClaims(String token) {
-        logger.info("Extracting all claims from token");
-        return Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token).getBody();
+    public int extractTokenVersion(String token) {
+        logger.info("Extracting token version from token");
+        return verify(token).getTokenVersion();
     }
 
-    public String generateToken(String username, int tokenVersion, Collection<? extends GrantedAuthority> authorities) {
-        logger.info("Generating token for user: " + username);
-        return Jwts.builder()
+    public String generateToken(UUID userId, String username, int tokenVersion, Collection<? extends GrantedAuthority> authorities) {
+        logger.debug("Generating token for user: {}", username);
+        long start = System.nanoTime();
+        TokenIssuedEvent event = new TokenIssuedEvent();
+        event.begin();
+        long now = System.currentTimeMillis();
+        SigningKeyRing.SigningKey signingKey = signingKeyRing.activeKey();
+        JwtBuilder builder = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
                 .setSubject(username)
-                .claim("authorities", authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()))
+                .claim("userId", userId.toString());
+        long roles = roleAuthorities.encode(authorities);
+        if (roles != RoleAuthorities.NOT_ENCODABLE) {
+            builder.claim(ROLES_CLAIM, roles);
+        } else {
+            builder.claim(AUTHORITIES_CLAIM, authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
+        }
+        String token = builder
                 .claim("tokenVersion", tokenVersion)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(secretKey)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration))
+                .signWith(signingKey.signingKey(), signingKey.algorithm())
                 .compact();
-    }
-
-    private boolean validateToken(String token) {
-        try {
-            return !isTokenExpired(token);
-        } catch (TokenExpiredException e) {
-            throw new TokenExpiredException("Token has expired");
-        } catch (JwtException e) {
-            throw new InvalidTokenException("Token is invalid", e);
+        issueTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        ServerTiming.record(ServerTiming.Phase.SIGN, start);
+        if (event.shouldCommit()) {
+            event.outcome = OutcomeTimer.SUCCESS;
+            event.algorithm = signingKey.algorithm().getValue();
+            event.kid = signingKey.kid();
+            event.commit();
         }
+        return token;
     }
 
     public boolean validateToken(String token, int tokenVersion) {
         logger.info("Validating token");
-        Claims claims = extractAllClaims(token);
-        int tokenVersionClaim = claims.get("tokenVersion", Integer.class);
-
-        if (isTokenExpired(token)) {
-            throw new TokenExpiredException("Token has expired");
-        }
+        return validateToken(verify(token), tokenVersion);
+    }
 
-        if (tokenVersionClaim != tokenVersion) {
-            throw new InvalidTokenException("Token version mismatch");
+    public boolean validateToken(VerifiedToken token, int tokenVersion) {
+        if (token.getTokenVersion() != tokenVersion) {
+            throw new TokenVersionMismatchException("Token version mismatch");
         }
         return true;
     }
 
     public List<String> extractAuthorities(String token) {
         logger.info("Extracting authorities from token");
-        Claims claims = extractAllClaims(token);
-        return claims.get("authorities", List.class);
+        return verify(token).getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
     }
 
-    private boolean isTokenExpired(String token) {
-        logger.info("Checking if token is expired");
-        return extractExpiration(token).before(new Date());
+    RoleAuthorities getRoleAuthorities() {
+        return roleAuthorities;
     }
 
-    private Date extractExpiration(String token) {
-        logger.info("Extracting expiration date from token");
-        return extractClaim(token, Claims::getExpiration);
+    private Set<GrantedAuthority> extractAuthorities(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (roles instanceof Number mask) {
+            return roleAuthorities.forMask(mask.longValue());
+        }
+        // Named authorities: roles without a code, or tokens minted before the roles claim
+        Object authorities = claims.get(AUTHORITIES_CLAIM);
+        if (!(authorities instanceof Collection<?> values)) {
+            return roleAuthorities.forMask(0);
+        }
+        List<String> names = new ArrayList<>(values.size());
+        for (Object value : values) {
+            names.add(String.valueOf(value));
+        }
+        return roleAuthorities.forNames(names);
     }
 
 }
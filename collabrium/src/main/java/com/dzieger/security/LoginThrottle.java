@@ -0,0 +1,178 @@
+package com.dzieger.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-username and per-client-IP login throttling, checked before any password work is done.
+ * <p>
+ * Each key owns a token bucket stored as a single theoretical-arrival-time value (the GCRA form of a
+ * token bucket), updated with a CAS loop, so a check never takes a lock. Buckets are spread over
+ * independent stripes; when a stripe grows past its share of {@code max-buckets} it drops buckets that
+ * have fully refilled, which loses no state. If a stripe is still full of active buckets, new keys are
+ * let through rather than tracked.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottle.class);
+
+    private static final int STRIPES = 16;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Limit usernameLimit;
+    private final Limit ipLimit;
+    private final Stripe[] usernameStripes = new Stripe[STRIPES];
+    private final Stripe[] ipStripes = new Stripe[STRIPES];
+    private final int maxBucketsPerStripe;
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+
+    public LoginThrottle(@Value("${collabrium.security.login-throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${collabrium.security.login-throttle.username.refill-per-minute:10}") int usernameRefillPerMinute,
+                         @Value("${collabrium.security.login-throttle.ip.capacity:30}") int ipCapacity,
+                         @Value("${collabrium.security.login-throttle.ip.refill-per-minute:60}") int ipRefillPerMinute,
+                         @Value("${collabrium.security.login-throttle.max-buckets:100000}") int maxBuckets) {
+        this.usernameLimit = Limit.of(usernameCapacity, usernameRefillPerMinute);
+        this.ipLimit = Limit.of(ipCapacity, ipRefillPerMinute);
+        this.maxBucketsPerStripe = Math.max(1, maxBuckets / (2 * STRIPES));
+        for (int i = 0; i < STRIPES; i++) {
+            usernameStripes[i] = new Stripe();
+            ipStripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes one token from both the username and the client IP bucket. Usernames are matched ignoring case,
+     * as they are at login, so case variants of one account share its bucket.
+     *
+     * @return 0 if the attempt may proceed, otherwise how many seconds the caller should wait
+     */
+    public long tryAcquire(String username, String clientIp) {
+        return tryAcquire(username, clientIp, System.nanoTime());
+    }
+
+    long tryAcquire(String username, String clientIp, long now) {
+        username = username == null ? "" : username.toLowerCase(Locale.ROOT);
+        clientIp = clientIp == null ? "" : clientIp;
+
+        long ipWait = acquire(ipStripes, clientIp, ipLimit, now);
+        if (ipWait > 0) {
+            rejections.increment();
+            return toRetryAfterSeconds(ipWait);
+        }
+
+        long usernameWait = acquire(usernameStripes, username, usernameLimit, now);
+        if (usernameWait > 0) {
+            release(ipStripes, clientIp, ipLimit);
+            rejections.increment();
+            return toRetryAfterSeconds(usernameWait);
+        }
+        return 0;
+    }
+
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    public long getUntrackedCount() {
+        return untracked.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            size += usernameStripes[i].buckets.size() + ipStripes[i].buckets.size();
+        }
+        return size;
+    }
+
+    private long acquire(Stripe[] stripes, String key, Limit limit, long now) {
+        Stripe stripe = stripeFor(stripes, key);
+        AtomicLong bucket = stripe.buckets.get(key);
+        if (bucket == null) {
+            if (stripe.buckets.size() >= maxBucketsPerStripe && !stripe.sweep(now)) {
+                untracked.increment();
+                return 0;
+            }
+            bucket = stripe.buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long arrival = bucket.get();
+            long base = Math.max(arrival, now);
+            // The attempt conforms while the bucket is no further ahead of now than the burst allows
+            long wait = base - now - limit.toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, base + limit.intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private void release(Stripe[] stripes, String key, Limit limit) {
+        AtomicLong bucket = stripeFor(stripes, key).buckets.get(key);
+        if (bucket != null) {
+            bucket.addAndGet(-limit.intervalNanos);
+        }
+    }
+
+    private static Stripe stripeFor(Stripe[] stripes, String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    private record Limit(long intervalNanos, long toleranceNanos) {
+
+        private static Limit of(int capacity, int refillPerMinute) {
+            long intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, refillPerMinute);
+            return new Limit(intervalNanos, intervalNanos * Math.max(0, capacity - 1));
+        }
+    }
+
+    private final class Stripe {
+
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+        private volatile long lastSweepNanos;
+
+        /**
+         * Drops buckets whose arrival time has passed, i.e. buckets that are full again.
+         *
+         * @return whether the stripe has room for another bucket afterwards
+         */
+        private boolean sweep(long now) {
+            if (now - lastSweepNanos >= SWEEP_INTERVAL_NANOS && sweeping.compareAndSet(false, true)) {
+                try {
+                    lastSweepNanos = now;
+                    int before = buckets.size();
+                    for (Iterator<AtomicLong> it = buckets.values().iterator(); it.hasNext(); ) {
+                        if (it.next().get() <= now) {
+                            it.remove();
+                        }
+                    }
+                    logger.debug("Swept login throttle stripe from {} to {} buckets", before, buckets.size());
+                } finally {
+                    sweeping.set(false);
+                }
+            }
+            return buckets.size() < maxBucketsPerStripe;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.dzieger.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return executor.execute(() -> delegate.encode(rawPassword));
+        } finally {
+            ServerTiming.record(ServerTiming.Phase.BCRYPT, start);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        try {
+            return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+        } finally {
+            ServerTiming.record(ServerTiming.Phase.BCRYPT, start);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,74 @@
+package com.dzieger.security;
+
+import com.dzieger.exceptions.InvalidTokenException;
+import com.dzieger.exceptions.TokenExpiredException;
+import com.dzieger.exceptions.TokenVersionMismatchException;
+import com.dzieger.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers that share a name and differ only in their {@code outcome} tag. They are registered up front,
+ * so recording on the request path is a map lookup rather than a meter registry lookup.
+ */
+public final class OutcomeTimer {
+
+    public static final String SUCCESS = "success";
+    public static final String EXPIRED = "expired";
+    public static final String INVALID = "invalid";
+    public static final String VERSION_MISMATCH = "version-mismatch";
+    public static final String NOT_FOUND = "not-found";
+    public static final String BAD_CREDENTIALS = "bad-credentials";
+    public static final String THROTTLED = "throttled";
+    public static final String ANONYMOUS = "anonymous";
+    public static final String ERROR = "error";
+
+    private final Map<String, Timer> timers = new HashMap<>();
+
+    public OutcomeTimer(MeterRegistry meterRegistry, String name, String description, String... outcomes) {
+        for (String outcome : outcomes) {
+            timers.put(outcome, register(meterRegistry, name, description, outcome));
+        }
+        timers.computeIfAbsent(ERROR, outcome -> register(meterRegistry, name, description, outcome));
+    }
+
+    public void record(String outcome, long startNanos) {
+        Timer timer = timers.get(outcome);
+        (timer != null ? timer : timers.get(ERROR)).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static String outcomeOf(Throwable e) {
+        if (e instanceof TokenExpiredException) {
+            return EXPIRED;
+        }
+        if (e instanceof TokenVersionMismatchException) {
+            return VERSION_MISMATCH;
+        }
+        if (e instanceof InvalidTokenException) {
+            return INVALID;
+        }
+        if (e instanceof UsernameNotFoundException) {
+            return NOT_FOUND;
+        }
+        if (e instanceof AuthenticationException) {
+            return BAD_CREDENTIALS;
+        }
+        if (e instanceof TooManyRequestsException) {
+            return THROTTLED;
+        }
+        return ERROR;
+    }
+
+    private static Timer register(MeterRegistry meterRegistry, String name, String description, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,86 @@
+package com.dzieger.security;
+
+import com.dzieger.repositories.ReactiveUserRepository;
+import com.dzieger.services.TokenVersionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux equivalent of {@link SecurityConfig} for the reactive profile. BCrypt runs on its own bounded
+ * scheduler so it never blocks an event loop; once its queue is full further logins are rejected.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@Profile("reactive")
+public class ReactiveSecurityConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveSecurityConfig.class);
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtUtil jwtUtil, TokenVerifier tokenVerifier,
+                                                         TokenVersionRegistry tokenVersionRegistry,
+                                                         ReactiveUserRepository reactiveUserRepository,
+                                                         MeterRegistry meterRegistry) {
+        logger.info("Configuring SecurityWebFilterChain");
+        // Not a bean: WebFlux would otherwise also run it outside the security chain
+        JwtAuthenticationWebFilter jwtAuthenticationWebFilter = new JwtAuthenticationWebFilter(jwtUtil, tokenVerifier,
+                tokenVersionRegistry, reactiveUserRepository, meterRegistry);
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers(SecurityConfig.PUBLIC_PATHS).permitAll()
+                        .pathMatchers(SecurityConfig.SCRAPE_PATHS).permitAll()
+                        .pathMatchers("/actuator/**").hasAuthority("ADMIN")
+                        .anyExchange().authenticated())
+                .addFilterAt(jwtAuthenticationWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler(
+            @Value("${collabrium.security.hashing.pool-size:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int poolSize,
+            @Value("${collabrium.security.hashing.queue-capacity:64}") int queueCapacity) {
+        logger.info("Password hashing scheduler started with {} threads and a queue of {}", poolSize, queueCapacity);
+        return Schedulers.newBoundedElastic(poolSize, queueCapacity, "password-hashing", 60, true);
+    }
+
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(ReactiveUserDetailsService userDetailsService,
+                                                                       PasswordEncoder passwordEncoder,
+                                                                       Scheduler passwordHashingScheduler) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        authenticationManager.setScheduler(passwordHashingScheduler);
+        return authenticationManager;
+    }
+}
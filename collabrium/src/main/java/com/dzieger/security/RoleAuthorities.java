@@ -0,0 +1,158 @@
+package com.dzieger.security;
+
+import com.dzieger.services.RoleRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps role combinations to the bitmask carried in the {@code roles} token claim, bit n being the role with
+ * code n in {@link RoleRegistry}. Every mask resolves to one shared, immutable authority set, so the
+ * request path hands the same instance to each authentication instead of rebuilding authorities.
+ * Roles without a code, or with one that does not fit in the mask, fall back to named authorities.
+ */
+@Component
+public class RoleAuthorities {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleAuthorities.class);
+
+    public static final long NOT_ENCODABLE = -1;
+
+    static final int MAX_CODE = 62;
+    // Distinct role combinations in use stay tiny; this only bounds what a bad mask could pin in memory
+    private static final int MAX_INTERNED_SETS = 256;
+
+    private volatile Table table = new Table(List.of());
+    private volatile Runnable reloader = () -> { };
+
+    /**
+     * Replaces the known roles. Called by whatever owns the roles table whenever it is (re)loaded.
+     */
+    public void update(Collection<RoleRegistry.RoleInfo> roles) {
+        table = new Table(roles);
+        logger.info("Role authorities loaded for {} roles", roles.size());
+    }
+
+    /**
+     * Called once when a token carries a role code this instance has not seen, typically a role added
+     * on another instance. It may reload synchronously or in the background.
+     */
+    public void setReloader(Runnable reloader) {
+        this.reloader = reloader;
+    }
+
+    public long encode(Collection<? extends GrantedAuthority> authorities) {
+        Table current = table;
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            Integer code = current.codeByName.get(authority.getAuthority());
+            if (code == null) {
+                return NOT_ENCODABLE;
+            }
+            mask |= 1L << code;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the interned authority set for the mask, or {@code null} if it names a role that is still
+     * unknown after a reload.
+     */
+    public Set<GrantedAuthority> forMask(long mask) {
+        if (mask < 0) {
+            return null;
+        }
+        Set<GrantedAuthority> authorities = table.forMask(mask);
+        if (authorities == null) {
+            logger.info("Token carries an unknown role code, reloading roles");
+            reloader.run();
+            authorities = table.forMask(mask);
+        }
+        return authorities;
+    }
+
+    /**
+     * Authorities for role names, shared with {@link #forMask} whenever every name has a code.
+     */
+    public Set<GrantedAuthority> forNames(Collection<String> names) {
+        Table current = table;
+        long mask = 0;
+        for (String name : names) {
+            Integer code = current.codeByName.get(name);
+            if (code == null) {
+                Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+                for (String each : names) {
+                    authorities.add(current.authorityFor(each));
+                }
+                return Set.copyOf(authorities);
+            }
+            mask |= 1L << code;
+        }
+        return current.forMask(mask);
+    }
+
+    private static final class Table {
+
+        private final Map<String, Integer> codeByName;
+        private final GrantedAuthority[] byCode;
+        private final long knownMask;
+        private final ConcurrentHashMap<Long, Set<GrantedAuthority>> interned = new ConcurrentHashMap<>();
+
+        private Table(Collection<RoleRegistry.RoleInfo> roles) {
+            Map<String, Integer> codeByName = new HashMap<>();
+            GrantedAuthority[] byCode = new GrantedAuthority[MAX_CODE + 1];
+            long knownMask = 0;
+            for (RoleRegistry.RoleInfo role : roles) {
+                if (role.code() < 0 || role.code() > MAX_CODE) {
+                    continue;
+                }
+                codeByName.put(role.name(), role.code());
+                byCode[role.code()] = new SimpleGrantedAuthority(role.name());
+                knownMask |= 1L << role.code();
+            }
+            this.codeByName = Map.copyOf(codeByName);
+            this.byCode = byCode;
+            this.knownMask = knownMask;
+        }
+
+        private Set<GrantedAuthority> forMask(long mask) {
+            if ((mask & ~knownMask) != 0) {
+                return null;
+            }
+            Set<GrantedAuthority> authorities = interned.get(mask);
+            if (authorities != null) {
+                return authorities;
+            }
+            authorities = build(mask);
+            if (interned.size() < MAX_INTERNED_SETS) {
+                Set<GrantedAuthority> existing = interned.putIfAbsent(mask, authorities);
+                return existing != null ? existing : authorities;
+            }
+            return authorities;
+        }
+
+        private Set<GrantedAuthority> build(long mask) {
+            GrantedAuthority[] authorities = new GrantedAuthority[Long.bitCount(mask)];
+            int i = 0;
+            for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                authorities[i++] = byCode[Long.numberOfTrailingZeros(remaining)];
+            }
+            return Set.of(authorities);
+        }
+
+        private GrantedAuthority authorityFor(String name) {
+            Integer code = codeByName.get(name);
+            return code != null ? byCode[code] : new SimpleGrantedAuthority(name);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.dzieger.security;
+
+import jakarta.servlet.ServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-request phase durations for the {@code Server-Timing} response header. {@link ServerTimingFilter}
+ * borrows an instance from a small pool at the start of a request and holds it in a request attribute, so
+ * virtual threads, which are created per request, allocate nothing of their own. Until the filter has run
+ * once {@link #record} is a single branch; after that it is a request attribute lookup.
+ */
+public final class ServerTiming {
+
+    public enum Phase {
+        VERIFY("verify"),
+        DB("db"),
+        BCRYPT("bcrypt"),
+        SIGN("sign"),
+        SERIALIZE("serialize");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final String ATTRIBUTE = ServerTiming.class.getName();
+    private static final AtomicReferenceArray<ServerTiming> POOL =
+            new AtomicReferenceArray<>(Runtime.getRuntime().availableProcessors() * 2);
+    private static volatile boolean enabled;
+
+    private final long[] nanos = new long[PHASES.length];
+    private final StringBuilder header = new StringBuilder(128);
+    private boolean active;
+    private long requestStartNanos;
+    private long serializationStartNanos;
+
+    private ServerTiming() {
+    }
+
+    static ServerTiming begin(ServletRequest request) {
+        if (!enabled) {
+            enabled = true;
+        }
+        ServerTiming timing = acquire();
+        Arrays.fill(timing.nanos, 0L);
+        timing.serializationStartNanos = 0L;
+        timing.requestStartNanos = System.nanoTime();
+        timing.active = true;
+        request.setAttribute(ATTRIBUTE, timing);
+        return timing;
+    }
+
+    /**
+     * Detaches the instance from the request and returns it to the pool; it must not be used afterwards.
+     */
+    void end(ServletRequest request) {
+        request.removeAttribute(ATTRIBUTE);
+        active = false;
+        release(this);
+    }
+
+    public static void record(Phase phase, long startNanos) {
+        ServerTiming timing = current();
+        if (timing != null && timing.active) {
+            timing.nanos[phase.ordinal()] += System.nanoTime() - startNanos;
+        }
+    }
+
+    public static void markSerializationStart() {
+        ServerTiming timing = current();
+        if (timing != null && timing.active) {
+            timing.serializationStartNanos = System.nanoTime();
+        }
+    }
+
+    private static ServerTiming current() {
+        if (!enabled) {
+            return null;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes == null ? null
+                : (ServerTiming) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private static ServerTiming acquire() {
+        for (int i = 0; i < POOL.length(); i++) {
+            ServerTiming pooled = POOL.get(i);
+            if (pooled != null && POOL.compareAndSet(i, pooled, null)) {
+                return pooled;
+            }
+        }
+        return new ServerTiming();
+    }
+
+    private static void release(ServerTiming timing) {
+        for (int i = 0; i < POOL.length(); i++) {
+            if (POOL.get(i) == null && POOL.compareAndSet(i, null, timing)) {
+                return;
+            }
+        }
+    }
+
+    String headerValue() {
+        long now = System.nanoTime();
+        if (serializationStartNanos != 0L) {
+            nanos[Phase.SERIALIZE.ordinal()] += now - serializationStartNanos;
+            serializationStartNanos = 0L;
+        }
+
+        header.setLength(0);
+        for (Phase phase : PHASES) {
+            long duration = nanos[phase.ordinal()];
+            if (duration > 0) {
+                appendMetric(phase.metricName, duration);
+            }
+        }
+        appendMetric("total", now - requestStartNanos);
+        return header.toString();
+    }
+
+    private void appendMetric(String name, long durationNanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        long micros = durationNanos / 1_000;
+        header.append(name).append(";dur=").append(micros / 1_000).append('.');
+        long fraction = micros % 1_000;
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        header.append(fraction);
+    }
+}
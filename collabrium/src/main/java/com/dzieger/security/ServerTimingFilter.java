@@ -0,0 +1,65 @@
+package com.dzieger.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opt-in {@code Server-Timing} breakdown for on-call debugging. Runs ahead of the security chain so that
+ * public endpoints such as {@code /auth/login} are covered too, and writes the header just before the
+ * response is committed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "collabrium.observability.server-timing.enabled", havingValue = "true")
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Server-Timing";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filter) throws
+            IOException, ServletException {
+        ServerTiming timing = ServerTiming.begin(request);
+        TimingResponse timingResponse = new TimingResponse(response, timing);
+        try {
+            filter.doFilter(request, timingResponse);
+            timingResponse.writeHeader();
+        } finally {
+            // A commit after this point must not read the instance once it is back in the pool
+            timingResponse.headerWritten = true;
+            timing.end(request);
+        }
+    }
+
+    private static final class TimingResponse extends OnCommittedResponseWrapper {
+
+        private final ServerTiming timing;
+        private boolean headerWritten;
+
+        private TimingResponse(HttpServletResponse response, ServerTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        private void writeHeader() {
+            if (!headerWritten && !isCommitted()) {
+                headerWritten = true;
+                addHeader(HEADER, timing.headerValue());
+            }
+        }
+    }
+}
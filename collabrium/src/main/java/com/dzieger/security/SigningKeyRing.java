@@ -0,0 +1,245 @@
+package com.dzieger.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.KeyException;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Token signing keys, keyed by the {@code kid} stamped into every token header. The keystore may hold HMAC
+ * secret keys as well as RSA or EC private keys with their certificates, and every key in it is accepted
+ * for verification. New tokens are signed with the key pinned by {@code active-kid}, or else
+ * with the newest key that has been in the keystore for at least {@code activation-delay-millis}, so a
+ * key added to the shared keystore is known to every node before any node starts signing with it. A key
+ * stays trusted for as long as it is in the keystore: retiring one means deleting it from the keystore once
+ * the tokens it signed have expired, which nodes pick up when they re-read the keystore after its
+ * modification time changes.
+ */
+@Component
+public class SigningKeyRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyRing.class);
+
+    private final String keystorePath;
+    private final char[] keystorePassword;
+    private final String keystoreType;
+    private final String activeKid;
+    private final long activationDelayMillis;
+    private final SignatureAlgorithm localAlgorithm;
+
+    private volatile Snapshot snapshot;
+    private long loadedLastModified;
+    private Map<String, SigningKey> loadedKeys;
+    private Map<String, Long> loadedCreationDates;
+
+    public SigningKeyRing(@Value("${collabrium.security.keys.keystore-path:}") String keystorePath,
+                          @Value("${collabrium.security.keys.keystore-password:}") String keystorePassword,
+                          @Value("${collabrium.security.keys.keystore-type:PKCS12}") String keystoreType,
+                          @Value("${collabrium.security.keys.active-kid:}") String activeKid,
+                          @Value("${collabrium.security.keys.activation-delay-millis:120000}") long activationDelayMillis,
+                          @Value("${collabrium.security.keys.local-algorithm:HS256}") String localAlgorithm) {
+        this.keystorePath = keystorePath;
+        this.keystorePassword = keystorePassword.toCharArray();
+        this.keystoreType = keystoreType;
+        this.activeKid = activeKid;
+        this.activationDelayMillis = activationDelayMillis;
+        this.localAlgorithm = SignatureAlgorithm.forName(localAlgorithm);
+
+        if (keystorePath.isBlank()) {
+            this.snapshot = generateLocalKey();
+        } else {
+            this.loadedLastModified = lastModified();
+            load();
+            this.snapshot = new Snapshot(selectActive(), loadedKeys);
+            logger.info("Loaded {} signing key(s) from {}, active kid: {}", loadedKeys.size(), keystorePath,
+                    snapshot.active().kid());
+        }
+    }
+
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    public SigningKey activeKey() {
+        return snapshot.active();
+    }
+
+    public SigningKey findKey(String kid) {
+        return kid == null ? null : snapshot.keys().get(kid);
+    }
+
+    @Scheduled(fixedDelayString = "${collabrium.security.keys.reload-interval-millis:60000}")
+    public synchronized void reload() {
+        if (keystorePath.isBlank()) {
+            return;
+        }
+        try {
+            long lastModified = lastModified();
+            boolean changed = lastModified != loadedLastModified;
+            if (changed) {
+                load();
+                loadedLastModified = lastModified;
+            }
+            SigningKey active = selectActive();
+            if (changed || active != snapshot.active()) {
+                snapshot = new Snapshot(active, loadedKeys);
+                logger.info("Signing key ring now holds {} key(s), active kid: {}", loadedKeys.size(), active.kid());
+            }
+        } catch (IllegalStateException e) {
+            logger.error("Failed to reload signing keys, keeping the previous key ring", e);
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return Files.getLastModifiedTime(Path.of(keystorePath)).toMillis();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read signing keystore " + keystorePath, e);
+        }
+    }
+
+    private void load() {
+        KeyStore keyStore;
+        try (InputStream in = Files.newInputStream(Path.of(keystorePath))) {
+            keyStore = KeyStore.getInstance(keystoreType);
+            keyStore.load(in, keystorePassword);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to load signing keystore " + keystorePath, e);
+        }
+
+        Map<String, SigningKey> keys = new LinkedHashMap<>();
+        Map<String, Long> creationDates = new LinkedHashMap<>();
+        try {
+            for (String alias : Collections.list(keyStore.aliases())) {
+                if (keyStore.entryInstanceOf(alias, KeyStore.SecretKeyEntry.class)) {
+                    Key key = keyStore.getKey(alias, keystorePassword);
+                    keys.put(alias, hmacKey(alias, key.getEncoded()));
+                } else if (keyStore.entryInstanceOf(alias, KeyStore.PrivateKeyEntry.class)) {
+                    PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, keystorePassword);
+                    Certificate certificate = keyStore.getCertificate(alias);
+                    keys.put(alias, asymmetricKey(alias, privateKey, certificate.getPublicKey()));
+                } else {
+                    continue;
+                }
+                Date created = keyStore.getCreationDate(alias);
+                creationDates.put(alias, created == null ? 0L : created.getTime());
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to read keys from signing keystore " + keystorePath, e);
+        }
+
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("Signing keystore " + keystorePath + " contains no usable keys");
+        }
+        if (!activeKid.isBlank() && !keys.containsKey(activeKid)) {
+            throw new IllegalStateException("Active signing key '" + activeKid + "' is not in " + keystorePath
+                    + " (known: " + keys.keySet() + ")");
+        }
+        loadedKeys = Map.copyOf(keys);
+        loadedCreationDates = creationDates;
+    }
+
+    private SigningKey selectActive() {
+        if (!activeKid.isBlank()) {
+            return loadedKeys.get(activeKid);
+        }
+        long activeBefore = System.currentTimeMillis() - activationDelayMillis;
+        String newest = null;
+        String oldest = null;
+        for (Map.Entry<String, Long> entry : loadedCreationDates.entrySet()) {
+            String kid = entry.getKey();
+            long created = entry.getValue();
+            if (oldest == null || created < loadedCreationDates.get(oldest)) {
+                oldest = kid;
+            }
+            if (created <= activeBefore && (newest == null || created > loadedCreationDates.get(newest)
+                    || (created == loadedCreationDates.get(newest) && kid.compareTo(newest) > 0))) {
+                newest = kid;
+            }
+        }
+        // Nothing has been around long enough yet, e.g. on first deployment: sign with the oldest key
+        return loadedKeys.get(newest != null ? newest : oldest);
+    }
+
+    private Snapshot generateLocalKey() {
+        logger.warn("No signing keystore configured (collabrium.security.keys.keystore-path); using a random {} key. "
+                + "Tokens will not be accepted by other instances or survive a restart.", localAlgorithm);
+        String kid = "local-" + UUID.randomUUID();
+        SigningKey signingKey;
+        if (localAlgorithm.isHmac()) {
+            SecretKey key = Keys.secretKeyFor(localAlgorithm);
+            signingKey = new SigningKey(kid, localAlgorithm, key, key);
+        } else {
+            KeyPair keyPair = Keys.keyPairFor(localAlgorithm);
+            signingKey = new SigningKey(kid, localAlgorithm, keyPair.getPrivate(), keyPair.getPublic());
+        }
+        return new Snapshot(signingKey, Map.of(kid, signingKey));
+    }
+
+    private static SigningKey asymmetricKey(String kid, PrivateKey privateKey, PublicKey publicKey) {
+        SignatureAlgorithm algorithm;
+        try {
+            algorithm = SignatureAlgorithm.forSigningKey(privateKey);
+        } catch (KeyException e) {
+            throw new IllegalStateException("Signing key '" + kid + "' cannot be used: " + e.getMessage(), e);
+        }
+        return new SigningKey(kid, algorithm, privateKey, publicKey);
+    }
+
+    private static SigningKey hmacKey(String kid, byte[] secret) {
+        SignatureAlgorithm algorithm;
+        if (secret.length >= 64) {
+            algorithm = SignatureAlgorithm.HS512;
+        } else if (secret.length >= 48) {
+            algorithm = SignatureAlgorithm.HS384;
+        } else if (secret.length >= 32) {
+            algorithm = SignatureAlgorithm.HS256;
+        } else {
+            throw new IllegalStateException("Signing key '" + kid + "' is shorter than 256 bits");
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, algorithm.getJcaName());
+        return new SigningKey(kid, algorithm, key, key);
+    }
+
+    /**
+     * For HMAC keys the signing and verification keys are the same secret; for RSA and EC keys the
+     * verification key is the public half, which is what the JWKS endpoint publishes.
+     */
+    public record SigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {
+
+        public boolean isAsymmetric() {
+            return verificationKey instanceof PublicKey;
+        }
+
+        @Override
+        public String toString() {
+            return "SigningKey{kid='" + kid + "', algorithm=" + algorithm + '}';
+        }
+    }
+
+    public record Snapshot(SigningKey active, Map<String, SigningKey> keys) {
+    }
+}
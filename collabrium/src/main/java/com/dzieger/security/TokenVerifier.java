@@ -0,0 +1,513 @@
+package com.dzieger.security;
+
+import com.dzieger.exceptions.InvalidTokenException;
+import com.dzieger.exceptions.TokenExpiredException;
+import com.dzieger.security.jfr.TokenVerifiedEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Verifies bearer tokens on the request path. Compact HS256 tokens minted by {@link JwtUtil} are checked
+ * with a per-thread {@link Mac} for the key named in their {@code kid} header and decoded straight from the
+ * token characters; anything else goes through {@link JwtUtil#verify(String)}. Verified tokens are kept in
+ * a small direct-mapped cache so a client replaying the same bearer token skips the signature work until
+ * the token expires, is evicted, or the key ring changes.
+ */
+@Component
+public class TokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVerifier.class);
+
+    static final String SOURCE_CACHE = "cache";
+    static final String SOURCE_HMAC = "hmac";
+    static final String SOURCE_JJWT = "jjwt";
+
+    private static final int SIGNATURE_LENGTH = 32;
+    // Only headers that name a known HS256 key are remembered, so this just bounds odd encodings of them
+    private static final int MAX_FAST_PATH_HEADERS = 16;
+    private static final int[] BASE64URL = new int[128];
+
+    static {
+        Arrays.fill(BASE64URL, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private final JwtUtil jwtUtil;
+    private final SigningKeyRing signingKeyRing;
+    private final RoleAuthorities roleAuthorities;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    // Virtual threads are created per request, so they borrow scratch buffers instead of keeping their own
+    private final AtomicReferenceArray<Scratch> scratchPool =
+            new AtomicReferenceArray<>(Runtime.getRuntime().availableProcessors() * 2);
+    private final AtomicReferenceArray<CacheEntry> cache;
+    private final int cacheMask;
+    private final OutcomeTimer verifyTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private volatile FastPathKeys fastPathKeys;
+
+    public TokenVerifier(JwtUtil jwtUtil, SigningKeyRing signingKeyRing, MeterRegistry meterRegistry,
+                         @Value("${collabrium.security.token-cache.size:4096}") int cacheSize) {
+        this.jwtUtil = jwtUtil;
+        this.signingKeyRing = signingKeyRing;
+        this.roleAuthorities = jwtUtil.getRoleAuthorities();
+        this.verifyTimer = new OutcomeTimer(meterRegistry, "collabrium.jwt.verify",
+                "Bearer token verification on the request path, including cache hits",
+                OutcomeTimer.SUCCESS, OutcomeTimer.EXPIRED, OutcomeTimer.INVALID);
+        this.cacheHits = Counter.builder("collabrium.jwt.verify.cache")
+                .description("Verified-token cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("collabrium.jwt.verify.cache")
+                .description("Verified-token cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.fastPathKeys = new FastPathKeys(signingKeyRing.current(), new FastPathKey[0]);
+        int capacity = Integer.highestOneBit(Math.max(16, cacheSize - 1) << 1);
+        this.cache = new AtomicReferenceArray<>(capacity);
+        this.cacheMask = capacity - 1;
+    }
+
+    public VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        TokenVerifiedEvent event = new TokenVerifiedEvent();
+        event.begin();
+        event.source = SOURCE_HMAC;
+        try {
+            VerifiedToken verifiedToken = verifyOrCache(token, event);
+            verifyTimer.record(OutcomeTimer.SUCCESS, start);
+            event.outcome = OutcomeTimer.SUCCESS;
+            return verifiedToken;
+        } catch (RuntimeException e) {
+            verifyTimer.record(OutcomeTimer.outcomeOf(e), start);
+            event.outcome = OutcomeTimer.outcomeOf(e);
+            throw e;
+        } finally {
+            // A full parse already emitted its own event from JwtUtil
+            if (!SOURCE_JJWT.equals(event.source)) {
+                event.commit();
+            }
+        }
+    }
+
+    private VerifiedToken verifyOrCache(String token, TokenVerifiedEvent event) {
+        if (token == null || token.isEmpty()) {
+            throw new InvalidTokenException("Token is invalid");
+        }
+
+        long now = System.currentTimeMillis();
+        SigningKeyRing.Snapshot keys = signingKeyRing.current();
+        int signatureStart = token.lastIndexOf('.') + 1;
+        long digest = digest(token, signatureStart);
+        int slot = (int) (digest ^ (digest >>> 32)) & cacheMask;
+
+        CacheEntry entry = cache.get(slot);
+        if (entry != null && entry.digest == digest && entry.keys == keys && entry.token.equals(token)) {
+            if (!entry.verifiedToken.isExpired(now)) {
+                cacheHits.increment();
+                event.source = SOURCE_CACHE;
+                return entry.verifiedToken;
+            }
+            cache.compareAndSet(slot, entry, null);
+        }
+        cacheMisses.increment();
+
+        VerifiedToken verifiedToken = verifyHs256(token, now, keys);
+        if (verifiedToken == null) {
+            logger.debug("Token not eligible for the HS256 fast path, falling back to full parse");
+            event.source = SOURCE_JJWT;
+            verifiedToken = jwtUtil.verify(token);
+        }
+
+        cache.set(slot, new CacheEntry(digest, token, keys, verifiedToken));
+        return verifiedToken;
+    }
+
+    public void evictSubject(String subject) {
+        for (int i = 0; i < cache.length(); i++) {
+            CacheEntry entry = cache.get(i);
+            if (entry != null && entry.verifiedToken.getSubject().equals(subject)) {
+                cache.compareAndSet(i, entry, null);
+            }
+        }
+    }
+
+    public void evictAll() {
+        for (int i = 0; i < cache.length(); i++) {
+            cache.set(i, null);
+        }
+    }
+
+    private VerifiedToken verifyHs256(String token, long now, SigningKeyRing.Snapshot keys) {
+        int headerEnd = token.indexOf('.');
+        if (headerEnd <= 0) {
+            return null;
+        }
+        int payloadEnd = token.indexOf('.', headerEnd + 1);
+        if (payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            return null;
+        }
+        FastPathKey key = fastPathKey(token, headerEnd, keys);
+        if (key == null) {
+            return null;
+        }
+
+        Scratch s = acquireScratch();
+        try {
+            return verifyHs256(token, now, key, headerEnd, payloadEnd, s);
+        } finally {
+            releaseScratch(s);
+        }
+    }
+
+    private VerifiedToken verifyHs256(String token, long now, FastPathKey key, int headerEnd, int payloadEnd, Scratch s) {
+        Mac mac = s.mac(key.key);
+        byte[] signingInput = s.ensureSigningInput(payloadEnd);
+        for (int i = 0; i < payloadEnd; i++) {
+            char c = token.charAt(i);
+            if (c >= 128) {
+                throw new InvalidTokenException("Token is invalid");
+            }
+            signingInput[i] = (byte) c;
+        }
+
+        mac.update(signingInput, 0, payloadEnd);
+        try {
+            mac.doFinal(s.expectedSignature, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute token signature", e);
+        }
+
+        int signatureLength = decode(token, payloadEnd + 1, token.length(), s.actualSignature);
+        if (signatureLength != SIGNATURE_LENGTH) {
+            throw new InvalidTokenException("Token is invalid");
+        }
+        int diff = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            diff |= s.expectedSignature[i] ^ s.actualSignature[i];
+        }
+        if (diff != 0) {
+            throw new InvalidTokenException("Token is invalid");
+        }
+
+        byte[] payload = s.ensurePayload(payloadEnd - headerEnd);
+        int payloadLength = decode(token, headerEnd + 1, payloadEnd, payload);
+        if (payloadLength < 0) {
+            throw new InvalidTokenException("Token is invalid");
+        }
+
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = parseClaims(payload, payloadLength);
+        } catch (IOException e) {
+            throw new InvalidTokenException("Token is invalid", e);
+        }
+        if (verifiedToken != null && verifiedToken.isExpired(now)) {
+            throw new TokenExpiredException("Token has expired");
+        }
+        return verifiedToken;
+    }
+
+    private Scratch acquireScratch() {
+        if (!Thread.currentThread().isVirtual()) {
+            return scratch.get();
+        }
+        for (int i = 0; i < scratchPool.length(); i++) {
+            Scratch pooled = scratchPool.get(i);
+            if (pooled != null && scratchPool.compareAndSet(i, pooled, null)) {
+                return pooled;
+            }
+        }
+        return new Scratch();
+    }
+
+    private void releaseScratch(Scratch s) {
+        if (!Thread.currentThread().isVirtual()) {
+            return;
+        }
+        for (int i = 0; i < scratchPool.length(); i++) {
+            if (scratchPool.get(i) == null && scratchPool.compareAndSet(i, null, s)) {
+                return;
+            }
+        }
+    }
+
+    private FastPathKey fastPathKey(String token, int headerEnd, SigningKeyRing.Snapshot keys) {
+        FastPathKeys known = fastPathKeys;
+        if (known.keys != keys) {
+            known = new FastPathKeys(keys, new FastPathKey[0]);
+            fastPathKeys = known;
+        }
+        for (FastPathKey key : known.byHeader) {
+            if (key.header.length() == headerEnd && token.startsWith(key.header)) {
+                return key;
+            }
+        }
+
+        String header = token.substring(0, headerEnd);
+        byte[] decoded = new byte[headerEnd * 3 / 4 + 1];
+        int length = decode(header, 0, headerEnd, decoded);
+        if (length < 0) {
+            return null;
+        }
+        String kid;
+        try {
+            kid = parseHs256KeyId(decoded, length);
+        } catch (IOException e) {
+            return null;
+        }
+        SigningKeyRing.SigningKey signingKey = kid == null ? null : keys.keys().get(kid);
+        if (signingKey == null || signingKey.algorithm() != SignatureAlgorithm.HS256) {
+            return null;
+        }
+
+        FastPathKey key = new FastPathKey(header, signingKey.verificationKey());
+        if (known.byHeader.length < MAX_FAST_PATH_HEADERS) {
+            FastPathKey[] byHeader = Arrays.copyOf(known.byHeader, known.byHeader.length + 1);
+            byHeader[known.byHeader.length] = key;
+            fastPathKeys = new FastPathKeys(keys, byHeader);
+        }
+        return key;
+    }
+
+    private String parseHs256KeyId(byte[] header, int length) throws IOException {
+        String algorithm = null;
+        String kid = null;
+        try (JsonParser parser = jsonFactory.createParser(header, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                    return null;
+                }
+                switch (field) {
+                    case "alg" -> algorithm = parser.getText();
+                    case "kid" -> kid = parser.getText();
+                    // typ, crit and friends are left to jjwt
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+        }
+        return "HS256".equals(algorithm) ? kid : null;
+    }
+
+    private VerifiedToken parseClaims(byte[] payload, int length) throws IOException {
+        String subject = null;
+        UUID userId = null;
+        int tokenVersion = 0;
+        boolean hasTokenVersion = false;
+        long expiresAt = -1;
+        long roles = 0;
+        boolean hasRoles = false;
+        List<String> authorityNames = null;
+
+        try (JsonParser parser = jsonFactory.createParser(payload, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "sub" -> {
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        subject = parser.getText();
+                    }
+                    case "userId" -> {
+                        if (value != JsonToken.VALUE_STRING) {
+                            return null;
+                        }
+                        try {
+                            userId = UUID.fromString(parser.getText());
+                        } catch (IllegalArgumentException e) {
+                            return null;
+                        }
+                    }
+                    case "tokenVersion" -> {
+                        if (value != JsonToken.VALUE_NUMBER_INT) {
+                            return null;
+                        }
+                        tokenVersion = parser.getIntValue();
+                        hasTokenVersion = true;
+                    }
+                    case "exp" -> {
+                        if (value != JsonToken.VALUE_NUMBER_INT) {
+                            return null;
+                        }
+                        expiresAt = parser.getLongValue() * 1000;
+                    }
+                    case JwtUtil.ROLES_CLAIM -> {
+                        if (value != JsonToken.VALUE_NUMBER_INT || parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                            return null;
+                        }
+                        roles = parser.getLongValue();
+                        hasRoles = true;
+                    }
+                    case JwtUtil.AUTHORITIES_CLAIM -> {
+                        if (value != JsonToken.START_ARRAY) {
+                            return null;
+                        }
+                        authorityNames = new ArrayList<>(2);
+                        while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                            authorityNames.add(parser.getText());
+                        }
+                        if (parser.currentToken() != JsonToken.END_ARRAY) {
+                            return null;
+                        }
+                    }
+                    case "iat" -> {
+                        if (value != JsonToken.VALUE_NUMBER_INT) {
+                            return null;
+                        }
+                    }
+                    // nbf, aud and friends are left to jjwt
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+        }
+
+        if (subject == null || userId == null || !hasTokenVersion || expiresAt < 0) {
+            return null;
+        }
+        if (hasRoles && roles < 0) {
+            // Not a mask this service issues; jjwt rejects it as an unknown role
+            return null;
+        }
+        Set<GrantedAuthority> authorities = hasRoles ? roleAuthorities.forMask(roles)
+                : authorityNames != null ? roleAuthorities.forNames(authorityNames)
+                : roleAuthorities.forMask(0);
+        if (authorities == null) {
+            return null;
+        }
+        return new VerifiedToken(userId, subject, tokenVersion, authorities, expiresAt);
+    }
+
+    private static int decode(String source, int from, int to, byte[] target) {
+        int length = to - from;
+        if (length % 4 == 1) {
+            return -1;
+        }
+        int decodedLength = length * 3 / 4;
+        if (decodedLength > target.length) {
+            return -1;
+        }
+
+        int out = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            int value = c < 128 ? BASE64URL[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            buffer = (buffer << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                target[out++] = (byte) (buffer >> bits);
+            }
+        }
+        return out;
+    }
+
+    private static long digest(String token, int signatureStart) {
+        // The signature segment is already an HMAC of the rest of the token, so its first 66 bits make a
+        // well-distributed cache key. A hit still requires the full token to match.
+        long digest = 0;
+        int end = Math.min(token.length(), signatureStart + 11);
+        for (int i = signatureStart; i < end; i++) {
+            digest = (digest << 6) | (token.charAt(i) & 0x3f);
+        }
+        return digest;
+    }
+
+    private record CacheEntry(long digest, String token, SigningKeyRing.Snapshot keys, VerifiedToken verifiedToken) {
+    }
+
+    private record FastPathKeys(SigningKeyRing.Snapshot keys, FastPathKey[] byHeader) {
+    }
+
+    private static final class FastPathKey {
+
+        private final String header;
+        private final Key key;
+
+        private FastPathKey(String header, Key key) {
+            this.header = header;
+            this.key = key;
+        }
+    }
+
+    private static final class Scratch {
+
+        private final byte[] expectedSignature = new byte[SIGNATURE_LENGTH];
+        private final byte[] actualSignature = new byte[SIGNATURE_LENGTH + 3];
+        private byte[] signingInput = new byte[512];
+        private byte[] payload = new byte[384];
+        private Mac mac;
+        private Key macKey;
+
+        private Mac mac(Key key) {
+            try {
+                if (mac == null) {
+                    mac = Mac.getInstance("HmacSHA256");
+                }
+                if (macKey != key) {
+                    mac.init(key);
+                    macKey = key;
+                }
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        }
+
+        private byte[] ensureSigningInput(int length) {
+            if (signingInput.length < length) {
+                signingInput = new byte[length];
+            }
+            return signingInput;
+        }
+
+        private byte[] ensurePayload(int encodedLength) {
+            int length = encodedLength * 3 / 4 + 1;
+            if (payload.length < length) {
+                payload = new byte[length];
+            }
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.dzieger.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Set;
+import java.util.UUID;
+
+public final class VerifiedToken {
+
+    private final UUID userId;
+    private final String subject;
+    private final int tokenVersion;
+    private final Set<GrantedAuthority> authorities;
+    private final long expiresAtMillis;
+
+    public VerifiedToken(UUID userId, String subject, int tokenVersion, Set<GrantedAuthority> authorities, long expiresAtMillis) {
+        this.userId = userId;
+        this.subject = subject;
+        this.tokenVersion = tokenVersion;
+        this.authorities = authorities;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    /**
+     * Shared, immutable set from {@link RoleAuthorities}; safe to hand straight to an authentication.
+     */
+    public Set<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis > expiresAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "VerifiedToken{" +
+                "userId=" + userId +
+                ", subject='" + subject + '\'' +
+                ", tokenVersion=" + tokenVersion +
+                ", authorities=" + authorities +
+                ", expiresAtMillis=" + expiresAtMillis +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package com.dzieger.security.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base for the Collabrium JFR events. Each event is timed between {@code begin()} and {@code commit()}
+ * and carries the same outcome values as the matching Micrometer timer. Usernames are deliberately left
+ * out so recordings can be shared without scrubbing.
+ */
+public abstract class AuthEvent extends Event {
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,15 @@
+package com.dzieger.security.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.dzieger.PasswordChecked")
+@Label("Password Checked")
+@Description("Credential check during login, including the user lookup and BCrypt")
+@Category({"Collabrium", "Authentication"})
+@StackTrace(false)
+public class PasswordCheckedEvent extends AuthEvent {
+}
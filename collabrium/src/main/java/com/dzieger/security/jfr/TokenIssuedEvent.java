@@ -0,0 +1,21 @@
+package com.dzieger.security.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.dzieger.TokenIssued")
+@Label("Token Issued")
+@Description("Signing of a new access token")
+@Category({"Collabrium", "Authentication"})
+@StackTrace(false)
+public class TokenIssuedEvent extends AuthEvent {
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Key ID")
+    public String kid;
+}
@@ -0,0 +1,19 @@
+package com.dzieger.security.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.dzieger.TokenVerified")
+@Label("Token Verified")
+@Description("Signature, expiry and claims check of a bearer token")
+@Category({"Collabrium", "Authentication"})
+@StackTrace(false)
+public class TokenVerifiedEvent extends AuthEvent {
+
+    @Label("Source")
+    @Description("cache, hmac for the HS256 fast path, or jjwt for a full parse")
+    public String source;
+}
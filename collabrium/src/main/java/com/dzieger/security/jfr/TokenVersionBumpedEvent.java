@@ -0,0 +1,18 @@
+package com.dzieger.security.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.dzieger.TokenVersionBumped")
+@Label("Token Version Bumped")
+@Description("Conditional token version update on refresh or logout")
+@Category({"Collabrium", "Authentication"})
+@StackTrace(false)
+public class TokenVersionBumpedEvent extends AuthEvent {
+
+    @Label("New Token Version")
+    public int newTokenVersion;
+}
@@ -0,0 +1,15 @@
+package com.dzieger.security.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.dzieger.UserLoaded")
+@Label("User Loaded")
+@Description("Principal and role lookup from the database")
+@Category({"Collabrium", "Authentication"})
+@StackTrace(false)
+public class UserLoadedEvent extends AuthEvent {
+}
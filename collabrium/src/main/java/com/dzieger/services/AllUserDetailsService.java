@@ -1,7 +1,12 @@
 package com.dzieger.services;
 
-import com.dzieger.models.AppUser;
+import com.dzieger.models.AuthPrincipalView;
 import com.dzieger.repositories.UserRepository;
+import com.dzieger.security.OutcomeTimer;
+import com.dzieger.security.RoleAuthorities;
+import com.dzieger.security.ServerTiming;
+import com.dzieger.security.jfr.UserLoadedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
@@ -19,25 +24,52 @@ import java.util.Collections;
 import java.util.stream.Collectors;
 
 @Service
+@Profile("!reactive")
 public class AllUserDetailsService implements UserDetailsService {
 
     private static final Logger logger = LoggerFactory.getLogger(AllUserDetailsService.class);
 
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final RoleAuthorities roleAuthorities;
+    private final ReadYourWrites readYourWrites;
+    private final OutcomeTimer lookupTimer;
 
-    public AllUserDetailsService(PasswordEncoder passwordEncoder, UserRepository userRepository) {
+    public AllUserDetailsService(PasswordEncoder passwordEncoder, UserRepository userRepository, RoleRegistry roleRegistry, RoleAuthorities roleAuthorities, ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
+        this.roleRegistry = roleRegistry;
+        this.roleAuthorities = roleAuthorities;
+        this.readYourWrites = readYourWrites;
+        this.lookupTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.user.lookup",
+                "Loading a user and their roles by username",
+                OutcomeTimer.SUCCESS, OutcomeTimer.NOT_FOUND);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         logger.info("Loading user: {}", username);
+        long start = System.nanoTime();
+        UserLoadedEvent event = new UserLoadedEvent();
+        event.begin();
 
-        AppUser appUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        AuthPrincipalView principal;
+        try {
+            principal = readYourWrites.read(() -> userRepository.findAuthPrincipalByUsername(username,
+                            roleId -> roleRegistry.requireById(roleId).name()), username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+            event.outcome = OutcomeTimer.SUCCESS;
+        } catch (RuntimeException e) {
+            lookupTimer.record(OutcomeTimer.outcomeOf(e), start);
+            event.outcome = OutcomeTimer.outcomeOf(e);
+            throw e;
+        } finally {
+            ServerTiming.record(ServerTiming.Phase.DB, start);
+            event.commit();
+        }
+        lookupTimer.record(OutcomeTimer.SUCCESS, start);
 
-        return new CustomUserDetails(appUser);
+        return new CustomUserDetails(principal, roleAuthorities.forNames(principal.getRoleNames()));
     }
 }
@@ -1,7 +1,10 @@
 package com.dzieger.services;
 
 import com.dzieger.exceptions.InvalidTokenException;
+import com.dzieger.exceptions.TokenVersionMismatchException;
+import com.dzieger.exceptions.TooManyRequestsException;
 import com.dzieger.models.AppUser;
+import com.dzieger.models.DTOs.AvailabilityDTO;
 import com.dzieger.models.DTOs.LoginDTO;
 import com.dzieger.models.DTOs.TokenDTO;
 import com.dzieger.models.DTOs.UserRegisterDTO;
@@ -11,9 +14,18 @@ import com.dzieger.repositories.RoleRepository;
 import com.dzieger.repositories.UserRepository;
 import com.dzieger.repositories.UserRoleRepository;
 import com.dzieger.security.JwtUtil;
-import io.jsonwebtoken.Claims;
+import com.dzieger.security.LoginThrottle;
+import com.dzieger.security.OutcomeTimer;
+import com.dzieger.security.ServerTiming;
+import com.dzieger.security.TokenVerifier;
+import com.dzieger.security.VerifiedToken;
+import com.dzieger.security.jfr.PasswordCheckedEvent;
+import com.dzieger.security.jfr.TokenVersionBumpedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
@@ -21,100 +33,161 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+
 @Service
+@Profile("!reactive")
 public class AuthService {
 
     private final Logger logger = LoggerFactory.getLogger(AuthService.class);
 
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final TokenVerifier tokenVerifier;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final UserRoleRepository userRoleRepository;
     private final AllUserDetailsService allUserDetailsService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final LoginThrottle loginThrottle;
+    private final AvailabilityService availabilityService;
+    private final RoleRegistry roleRegistry;
+    private final ReadYourWrites readYourWrites;
 
     private final PasswordEncoder passwordEncoder;
 
-    public AuthService(AuthenticationManager authenticationManager, JwtUtil jwtUtil, UserRepository userRepository, RoleRepository roleRepository, UserRoleRepository userRoleRepository, AllUserDetailsService allUserDetailsService, PasswordEncoder passwordEncoder) {
+    private final OutcomeTimer loginTimer;
+    private final OutcomeTimer passwordCheckTimer;
+    private final OutcomeTimer refreshTimer;
+    private final OutcomeTimer logoutTimer;
+    private final OutcomeTimer tokenVersionBumpTimer;
+
+    public AuthService(AuthenticationManager authenticationManager, JwtUtil jwtUtil, TokenVerifier tokenVerifier, UserRepository userRepository, RoleRepository roleRepository, UserRoleRepository userRoleRepository, AllUserDetailsService allUserDetailsService, TokenVersionRegistry tokenVersionRegistry, LoginThrottle loginThrottle, AvailabilityService availabilityService, RoleRegistry roleRegistry, ReadYourWrites readYourWrites, PasswordEncoder passwordEncoder, MeterRegistry meterRegistry) {
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.tokenVerifier = tokenVerifier;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.userRoleRepository = userRoleRepository;
         this.allUserDetailsService = allUserDetailsService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.loginThrottle = loginThrottle;
+        this.availabilityService = availabilityService;
+        this.roleRegistry = roleRegistry;
+        this.readYourWrites = readYourWrites;
         this.passwordEncoder = passwordEncoder;
+
+        this.loginTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.login", "Login requests end to end",
+                OutcomeTimer.SUCCESS, OutcomeTimer.THROTTLED, OutcomeTimer.BAD_CREDENTIALS);
+        this.passwordCheckTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.password.check",
+                "Credential check by the authentication manager, including its user lookup",
+                OutcomeTimer.SUCCESS, OutcomeTimer.BAD_CREDENTIALS);
+        this.refreshTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.refresh", "Token refresh requests end to end",
+                OutcomeTimer.SUCCESS, OutcomeTimer.EXPIRED, OutcomeTimer.INVALID, OutcomeTimer.VERSION_MISMATCH,
+                OutcomeTimer.NOT_FOUND);
+        this.logoutTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.logout", "Logout requests end to end",
+                OutcomeTimer.SUCCESS, OutcomeTimer.EXPIRED, OutcomeTimer.INVALID, OutcomeTimer.VERSION_MISMATCH);
+        this.tokenVersionBumpTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.token.version.bump",
+                "Conditional tokenVersion update behind refresh and logout",
+                OutcomeTimer.SUCCESS, OutcomeTimer.VERSION_MISMATCH);
     }
 
-    public TokenDTO login(LoginDTO loginDTO) {
+    public TokenDTO login(LoginDTO loginDTO, String clientIp) {
         logger.info("Received login request");
+        long start = System.nanoTime();
+
+        long retryAfterSeconds = loginThrottle.tryAcquire(loginDTO.getUsername(), clientIp);
+        if (retryAfterSeconds > 0) {
+            logger.warn("Login Throttled - Too many attempts for user or client");
+            loginTimer.record(OutcomeTimer.THROTTLED, start);
+            throw new TooManyRequestsException("Too many login attempts, please retry later", retryAfterSeconds);
+        }
 
         try {
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginDTO.getUsername(), loginDTO.getPassword())
-            );
+            long passwordCheckStart = System.nanoTime();
+            PasswordCheckedEvent passwordCheckedEvent = new PasswordCheckedEvent();
+            passwordCheckedEvent.begin();
+            try {
+                authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(loginDTO.getUsername(), loginDTO.getPassword())
+                );
+                passwordCheckedEvent.outcome = OutcomeTimer.SUCCESS;
+            } catch (RuntimeException e) {
+                passwordCheckTimer.record(OutcomeTimer.outcomeOf(e), passwordCheckStart);
+                passwordCheckedEvent.outcome = OutcomeTimer.outcomeOf(e);
+                throw e;
+            } finally {
+                passwordCheckedEvent.commit();
+            }
+            passwordCheckTimer.record(OutcomeTimer.SUCCESS, passwordCheckStart);
 
             CustomUserDetails userDetails = (CustomUserDetails) allUserDetailsService.loadUserByUsername(loginDTO.getUsername());
             logger.info("Auth Service: User details loaded for user: {}", userDetails.getUsername());
+            tokenVersionRegistry.update(userDetails.getId(), userDetails.getTokenVersion());
 
-            String token = jwtUtil.generateToken(userDetails.getUsername(), userDetails.getTokenVersion(), userDetails.getAuthorities());
+            String token = jwtUtil.generateToken(userDetails.getId(), userDetails.getUsername(), userDetails.getTokenVersion(), userDetails.getAuthorities());
 
             TokenDTO tokenDTO = new TokenDTO();
             tokenDTO.setToken(token);
 
-            logger.info("Login Success - Token generated for user: {}", jwtUtil.extractUsername(token));
+            logger.info("Login Success - Token generated for user: {}", userDetails.getUsername());
+            loginTimer.record(OutcomeTimer.SUCCESS, start);
             return tokenDTO;
         } catch (AuthenticationException e) {
             logger.error("Login Failed - Invalid username or password");
+            loginTimer.record(OutcomeTimer.BAD_CREDENTIALS, start);
             throw new InvalidTokenException("Login Failed - Invalid username or password");
+        } catch (RuntimeException e) {
+            loginTimer.record(OutcomeTimer.outcomeOf(e), start);
+            throw e;
         }
     }
 
     public TokenDTO refresh(TokenDTO incomingTokenDTO) {
         logger.info("Received refresh token request");
+        long start = System.nanoTime();
 
         try {
-            String username = jwtUtil.extractUsername(incomingTokenDTO.getToken());
-            if (username == null) {
-                throw new InvalidTokenException("Refresh Token Failed - Invalid token");
-            }
-            int tokenVersion = jwtUtil.extractTokenVersion(incomingTokenDTO.getToken());
+            long verifyStart = System.nanoTime();
+            VerifiedToken verifiedToken = jwtUtil.verify(incomingTokenDTO.getToken());
+            ServerTiming.record(ServerTiming.Phase.VERIFY, verifyStart);
+            String username = verifiedToken.getSubject();
 
-            CustomUserDetails userDetails = (CustomUserDetails) allUserDetailsService.loadUserByUsername(username);
+            int newTokenVersion = incrementTokenVersion(verifiedToken.getUserId(), username, verifiedToken.getTokenVersion());
 
-            jwtUtil.validateToken(incomingTokenDTO.getToken(), userDetails.getTokenVersion());
-
-            incrementTokenVersion(userDetails);
+            CustomUserDetails userDetails = (CustomUserDetails) allUserDetailsService.loadUserByUsername(username);
 
-            String newToken = jwtUtil.generateToken(username, tokenVersion, userDetails.getAuthorities());
+            String newToken = jwtUtil.generateToken(verifiedToken.getUserId(), username, newTokenVersion, userDetails.getAuthorities());
 
             TokenDTO tokenDTO = new TokenDTO();
             tokenDTO.setToken(newToken);
 
-            logger.info("Token refreshed for user: {}", jwtUtil.extractUsername(newToken));
+            logger.info("Token refreshed for user: {}", username);
+            refreshTimer.record(OutcomeTimer.SUCCESS, start);
             return tokenDTO;
         } catch (Exception e) {
+            refreshTimer.record(OutcomeTimer.outcomeOf(e), start);
             throw new InvalidTokenException("Token refresh failed", e);
         }
     }
 
     public String logout(TokenDTO incomingTokenDTO) {
         logger.info("Received logout request");
+        long start = System.nanoTime();
 
         try {
-            String username = jwtUtil.extractUsername(incomingTokenDTO.getToken());
-            if (username == null) {
-                throw new InvalidTokenException("Logout Failed - Invalid token");
-            }
-
-            CustomUserDetails userDetails = (CustomUserDetails) allUserDetailsService.loadUserByUsername(username);
+            long verifyStart = System.nanoTime();
+            VerifiedToken verifiedToken = jwtUtil.verify(incomingTokenDTO.getToken());
+            ServerTiming.record(ServerTiming.Phase.VERIFY, verifyStart);
+            String username = verifiedToken.getSubject();
 
-            jwtUtil.validateToken(incomingTokenDTO.getToken(), userDetails.getTokenVersion());
-
-            incrementTokenVersion(userDetails);
+            incrementTokenVersion(verifiedToken.getUserId(), username, verifiedToken.getTokenVersion());
 
             logger.info("Token invalidated for user: {}", username);
+            logoutTimer.record(OutcomeTimer.SUCCESS, start);
             return "Logout successful";
         } catch (Exception e) {
+            logoutTimer.record(OutcomeTimer.outcomeOf(e), start);
             throw new InvalidTokenException("Logout failed", e);
         }
     }
@@ -122,12 +195,16 @@ public class AuthService {
     public String register(UserRegisterDTO userRegisterDTO) {
         logger.info("Received register request");
 
-        if (isUsernameTaken(userRegisterDTO.getUsername())) {
+        // A lagging replica must not let a duplicate through, so the check before inserting reads the primary
+        AvailabilityDTO availability = readYourWrites.onPrimary(
+                () -> availabilityService.check(userRegisterDTO.getUsername(), userRegisterDTO.getEmail()));
+
+        if (Boolean.FALSE.equals(availability.getUsernameAvailable())) {
             logger.error("Register Failed - Username already taken");
             throw new IllegalArgumentException("Register Failed - Username already taken");
         }
 
-        if (isEmailTaken(userRegisterDTO.getEmail())) {
+        if (Boolean.FALSE.equals(availability.getEmailAvailable())) {
             logger.error("Register Failed - Email already taken");
             throw new IllegalArgumentException("Register Failed - Email already taken");
         }
@@ -139,14 +216,28 @@ public class AuthService {
         appUser.setFirstName(userRegisterDTO.getFirstName());
         appUser.setLastName(userRegisterDTO.getLastName());
 
-        userRepository.save(appUser);
+        long saveStart = System.nanoTime();
+        try {
+            userRepository.save(appUser);
+        } catch (DataIntegrityViolationException e) {
+            // Taken through another instance, which this instance's availability filters never saw
+            AvailabilityDTO taken = readYourWrites.onPrimary(
+                    () -> availabilityService.checkDatabase(userRegisterDTO.getUsername(), userRegisterDTO.getEmail()));
+            String message = Boolean.FALSE.equals(taken.getEmailAvailable()) && !Boolean.FALSE.equals(taken.getUsernameAvailable())
+                    ? "Register Failed - Email already taken" : "Register Failed - Username already taken";
+            logger.error(message);
+            throw new IllegalArgumentException(message, e);
+        }
+        availabilityService.record(appUser.getUsername(), appUser.getEmail());
 
-        Role userRole = roleRepository.findByNameIgnoreCase("USER").orElseThrow(() -> new RuntimeException("Error: Role is not found."));
+        Role userRole = roleRepository.getReferenceById(roleRegistry.requireByName("USER").id());
 
         UserRole userRoleMapping = new UserRole();
         userRoleMapping.setUser(appUser);
         userRoleMapping.setRole(userRole);
         userRoleRepository.save(userRoleMapping);
+        ServerTiming.record(ServerTiming.Phase.DB, saveStart);
+        readYourWrites.recordWrite(appUser.getUsername(), appUser.getEmail());
 
         logger.info("Register Success - User registered: {}", appUser.getUsername());
         return "Register Success - User registered: " + appUser.getUsername();
@@ -154,24 +245,47 @@ public class AuthService {
 
 
     public boolean isUsernameTaken(String username) {
-        return userRepository.findByUsername(username).isPresent();
+        return Boolean.FALSE.equals(availabilityService.check(username, null).getUsernameAvailable());
     }
 
     public boolean isEmailTaken(String email) {
-        return userRepository.findByEmail(email).isPresent();
+        return Boolean.FALSE.equals(availabilityService.check(null, email).getEmailAvailable());
     }
 
     public AppUser getUserByUsername(String username) {
         return userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
-    public void incrementTokenVersion(CustomUserDetails userDetails) {
-        AppUser appUser = getUserByUsername(userDetails.getUsername());
-
-        appUser.setTokenVersion(appUser.getTokenVersion() + 1);
-        userRepository.save(appUser);
-
-        logger.info("Token version incremented for user: {}", userDetails.getUsername());
+    /**
+     * Moves the user's tokenVersion from {@code expectedTokenVersion} to the next version in a single
+     * conditional update. Only one of several concurrent callers holding the same token can win; the
+     * others get a {@link TokenVersionMismatchException}.
+     */
+    public int incrementTokenVersion(UUID userId, String username, int expectedTokenVersion) {
+        long start = System.nanoTime();
+        TokenVersionBumpedEvent event = new TokenVersionBumpedEvent();
+        event.begin();
+        int updated = userRepository.incrementTokenVersion(userId, expectedTokenVersion);
+        ServerTiming.record(ServerTiming.Phase.DB, start);
+        if (updated == 0) {
+            tokenVersionBumpTimer.record(OutcomeTimer.VERSION_MISMATCH, start);
+            event.outcome = OutcomeTimer.VERSION_MISMATCH;
+            event.newTokenVersion = expectedTokenVersion;
+            event.commit();
+            throw new TokenVersionMismatchException("Token version mismatch");
+        }
+        tokenVersionBumpTimer.record(OutcomeTimer.SUCCESS, start);
+
+        int newTokenVersion = expectedTokenVersion + 1;
+        event.outcome = OutcomeTimer.SUCCESS;
+        event.newTokenVersion = newTokenVersion;
+        event.commit();
+        tokenVersionRegistry.update(userId, newTokenVersion);
+        readYourWrites.recordWrite(userId, username);
+        tokenVerifier.evictSubject(username);
+
+        logger.info("Token version incremented for user: {}", username);
+        return newTokenVersion;
     }
 
 }
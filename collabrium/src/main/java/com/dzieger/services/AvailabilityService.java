@@ -0,0 +1,116 @@
+package com.dzieger.services;
+
+import com.dzieger.models.DTOs.AvailabilityDTO;
+import com.dzieger.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Answers "is this username / email taken?" for signup forms and registration. Usernames and emails are
+ * mirrored into Bloom filters at startup and on every registration, so a definite "not taken" costs no
+ * query; only possible hits go to the database, in a single lookup covering both columns. The filters only
+ * see registrations made through this instance, so a "not taken" is advisory and the unique indexes have
+ * the final say.
+ */
+@Service
+@Profile("!reactive")
+public class AvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityService.class);
+    private static final int LOAD_BATCH_SIZE = 10000;
+
+    private final UserRepository userRepository;
+    private final ReadYourWrites readYourWrites;
+    private final BloomFilter usernames;
+    private final BloomFilter emails;
+    private volatile boolean loaded;
+
+    public AvailabilityService(UserRepository userRepository, ReadYourWrites readYourWrites,
+                               @Value("${collabrium.availability.expected-users:1000000}") long expectedUsers,
+                               @Value("${collabrium.availability.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.readYourWrites = readYourWrites;
+        this.usernames = new BloomFilter(expectedUsers, falsePositiveRate);
+        this.emails = new BloomFilter(expectedUsers, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadExistingUsers() {
+        logger.info("Loading usernames and emails into availability filters");
+        long count = 0;
+        UUID after = null;
+        List<Object[]> batch;
+        do {
+            PageRequest page = PageRequest.ofSize(LOAD_BATCH_SIZE);
+            UUID from = after;
+            // From the primary: a user missing from the filters would be reported as available
+            batch = readYourWrites.onPrimary(() -> from == null
+                    ? userRepository.findIdentityBatch(page)
+                    : userRepository.findIdentityBatchAfter(from, page));
+            for (Object[] row : batch) {
+                record((String) row[1], (String) row[2]);
+                after = (UUID) row[0];
+            }
+            count += batch.size();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        loaded = true;
+        logger.info("Availability filters loaded with {} users", count);
+    }
+
+    public void record(String username, String email) {
+        if (username != null) {
+            usernames.add(normalize(username));
+        }
+        if (email != null) {
+            emails.add(normalize(email));
+        }
+    }
+
+    public AvailabilityDTO check(String username, String email) {
+        boolean usernameMaybeTaken = username != null && (!loaded || usernames.mightContain(normalize(username)));
+        boolean emailMaybeTaken = email != null && (!loaded || emails.mightContain(normalize(email)));
+
+        if (usernameMaybeTaken || emailMaybeTaken) {
+            return lookUp(username, email);
+        }
+        return new AvailabilityDTO(username == null ? null : true, email == null ? null : true);
+    }
+
+    /**
+     * Skips the filters and asks the database. For when the filters are known to be missing a user, such as
+     * one registered through another instance; whatever turns out to be taken is added to them.
+     */
+    public AvailabilityDTO checkDatabase(String username, String email) {
+        AvailabilityDTO availability = lookUp(username, email);
+        record(Boolean.FALSE.equals(availability.getUsernameAvailable()) ? username : null,
+                Boolean.FALSE.equals(availability.getEmailAvailable()) ? email : null);
+        return availability;
+    }
+
+    private AvailabilityDTO lookUp(String username, String email) {
+        boolean usernameTaken = false;
+        boolean emailTaken = false;
+        List<Object[]> matches = readYourWrites.read(
+                () -> userRepository.findUsernameAndEmailMatches(username, email), username, email);
+        for (Object[] row : matches) {
+            usernameTaken |= username != null && username.equalsIgnoreCase((String) row[0]);
+            emailTaken |= email != null && email.equalsIgnoreCase((String) row[1]);
+        }
+        return new AvailabilityDTO(username == null ? null : !usernameTaken, email == null ? null : !emailTaken);
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,34 +1,39 @@
 package com.dzieger.services;
 
-import com.dzieger.models.AppUser;
+import com.dzieger.models.AuthPrincipalView;
+import com.dzieger.security.RoleAuthorities;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.UUID;
 
 public class CustomUserDetails implements UserDetails {
 
-    private final AppUser user;
+    private final AuthPrincipalView user;
+    private final Set<GrantedAuthority> authorities;
 
-    public CustomUserDetails(AppUser user) {
+    /**
+     * @param authorities the shared set for the user's roles, see {@link RoleAuthorities#forNames}
+     */
+    public CustomUserDetails(AuthPrincipalView user, Set<GrantedAuthority> authorities) {
         this.user = user;
+        this.authorities = authorities;
+    }
+
+    public UUID getId() {
+        return user.getId();
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-                .map(userRole -> new GrantedAuthority() {
-                    @Override
-                    public String getAuthority() {
-                        return userRole.getRole().getName();
-                    }
-                }).collect(Collectors.toSet());
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return user.getPasswordHash();
     }
 
     @Override
@@ -1,61 +1,91 @@
 package com.dzieger.services;
 
-import com.dzieger.models.AppUser;
-import com.dzieger.models.Role;
-import com.dzieger.models.UserRole;
-import com.dzieger.repositories.RoleRepository;
 import com.dzieger.repositories.UserRepository;
 import com.dzieger.repositories.UserRoleRepository;
-import jakarta.transaction.Transactional;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.UUID;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Creates the admin account on a fresh database. The default roles come from the V3 migration and the
+ * password hash is configured rather than computed, so seeding is one insert-if-absent (plus the role
+ * mapping when it actually inserted) and, unless {@code collabrium.seed.async} is off, it runs once the
+ * application is ready instead of holding up startup.
+ */
 @Service
+@Profile("!reactive")
 public class DatabaseSeederService {
 
     private static final Logger logger = Logger.getLogger(DatabaseSeederService.class.getName());
+    private static final String ADMIN_USERNAME = "admin";
+    private static final String ADMIN_DETAILS = "N/A";
+
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
     private final UserRoleRepository userRoleRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final AvailabilityService availabilityService;
+    private final ReadYourWrites readYourWrites;
+    private final TransactionTemplate transactionTemplate;
+    private final String adminPasswordHash;
+    private final boolean async;
 
-    public DatabaseSeederService(UserRepository userRepository, RoleRepository roleRepository, UserRoleRepository userRoleRepository, PasswordEncoder passwordEncoder) {
+    public DatabaseSeederService(UserRepository userRepository, UserRoleRepository userRoleRepository,
+                                 AvailabilityService availabilityService, ReadYourWrites readYourWrites,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${collabrium.seed.admin-password-hash}") String adminPasswordHash,
+                                 @Value("${collabrium.seed.async:true}") boolean async) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
         this.userRoleRepository = userRoleRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.availabilityService = availabilityService;
+        this.readYourWrites = readYourWrites;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.adminPasswordHash = adminPasswordHash;
+        this.async = async;
     }
 
-    @Transactional
-    public void seedDatabase() {
-        logger.info("Seeding database");
-
-        Role roleAdmin = roleRepository.findByNameIgnoreCase("ADMIN")
-                .orElseGet(() -> roleRepository.save(new Role("ADMIN")));
-
-        Role roleUser = roleRepository.findByNameIgnoreCase("USER")
-                .orElseGet(() -> roleRepository.save(new Role("USER")));
-
-
-        if (userRepository.findByUsername("admin").isEmpty()) {
-
-            AppUser admin = new AppUser();
-            admin.setEmail("N/A");
-            admin.setFirstName("N/A");
-            admin.setLastName("N/A");
-            admin.setEmail("N/A");
-            admin.setUsername("admin");
-            admin.setPassword(passwordEncoder.encode("password"));
-            admin.setTokenVersion(0);
-            userRepository.save(admin);
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!async) {
+            seedDatabase();
+            return;
+        }
+        Thread.ofVirtual().name("database-seeder").start(() -> {
+            try {
+                seedDatabase();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Seeding the database failed", e);
+            }
+        });
+    }
 
-            UserRole userRoleAdmin = new UserRole();
-            userRoleAdmin.setUser(admin);
-            userRoleAdmin.setRole(roleAdmin);
-            userRoleRepository.save(userRoleAdmin);
+    public void seedDatabase() {
+        UUID adminId = UUID.randomUUID();
+        boolean created;
+        try {
+            created = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (userRepository.insertIfAbsent(adminId, ADMIN_USERNAME, adminPasswordHash,
+                        ADMIN_DETAILS, ADMIN_DETAILS, ADMIN_DETAILS) == 0) {
+                    return false;
+                }
+                userRoleRepository.insertByRoleName(UUID.randomUUID(), adminId, "ADMIN");
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance seeded the same fresh database at the same moment
+            created = false;
+        }
 
+        if (created) {
+            availabilityService.record(ADMIN_USERNAME, ADMIN_DETAILS);
+            readYourWrites.recordWrite(adminId, ADMIN_USERNAME);
             logger.info("Created admin user");
         }
     }
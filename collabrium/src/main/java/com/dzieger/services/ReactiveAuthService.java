@@ -0,0 +1,229 @@
+package com.dzieger.services;
+
+import com.dzieger.exceptions.InvalidTokenException;
+import com.dzieger.exceptions.ServiceBusyException;
+import com.dzieger.exceptions.TokenVersionMismatchException;
+import com.dzieger.exceptions.TooManyRequestsException;
+import com.dzieger.models.DTOs.AvailabilityDTO;
+import com.dzieger.models.DTOs.LoginDTO;
+import com.dzieger.models.DTOs.TokenDTO;
+import com.dzieger.models.DTOs.UserRegisterDTO;
+import com.dzieger.repositories.ReactiveUserRepository;
+import com.dzieger.security.JwtUtil;
+import com.dzieger.security.LoginThrottle;
+import com.dzieger.security.OutcomeTimer;
+import com.dzieger.security.TokenVerifier;
+import com.dzieger.security.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link AuthService} for the reactive profile. Nothing here blocks: queries go through R2DBC and
+ * BCrypt runs on the bounded password hashing scheduler.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveAuthService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveAuthService.class);
+
+    private final ReactiveAuthenticationManager authenticationManager;
+    private final ReactiveUserDetailsService userDetailsService;
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final JwtUtil jwtUtil;
+    private final TokenVerifier tokenVerifier;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final LoginThrottle loginThrottle;
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler passwordHashingScheduler;
+    private final TransactionalOperator transactionalOperator;
+    private final OutcomeTimer loginTimer;
+    private final OutcomeTimer refreshTimer;
+    private final OutcomeTimer logoutTimer;
+    private final OutcomeTimer tokenVersionBumpTimer;
+
+    public ReactiveAuthService(ReactiveAuthenticationManager authenticationManager, ReactiveUserDetailsService userDetailsService,
+                               ReactiveUserRepository reactiveUserRepository, JwtUtil jwtUtil, TokenVerifier tokenVerifier,
+                               TokenVersionRegistry tokenVersionRegistry, LoginThrottle loginThrottle,
+                               PasswordEncoder passwordEncoder, Scheduler passwordHashingScheduler,
+                               TransactionalOperator transactionalOperator, MeterRegistry meterRegistry) {
+        this.authenticationManager = authenticationManager;
+        this.userDetailsService = userDetailsService;
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.jwtUtil = jwtUtil;
+        this.tokenVerifier = tokenVerifier;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.loginThrottle = loginThrottle;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingScheduler = passwordHashingScheduler;
+        this.transactionalOperator = transactionalOperator;
+        this.loginTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.login", "Login requests end to end",
+                OutcomeTimer.SUCCESS, OutcomeTimer.THROTTLED, OutcomeTimer.BAD_CREDENTIALS);
+        this.refreshTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.refresh", "Token refresh requests end to end",
+                OutcomeTimer.SUCCESS, OutcomeTimer.EXPIRED, OutcomeTimer.INVALID, OutcomeTimer.VERSION_MISMATCH,
+                OutcomeTimer.NOT_FOUND);
+        this.logoutTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.logout", "Logout requests end to end",
+                OutcomeTimer.SUCCESS, OutcomeTimer.EXPIRED, OutcomeTimer.INVALID, OutcomeTimer.VERSION_MISMATCH);
+        this.tokenVersionBumpTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.token.version.bump",
+                "Conditional tokenVersion update behind refresh and logout",
+                OutcomeTimer.SUCCESS, OutcomeTimer.VERSION_MISMATCH);
+    }
+
+    public Mono<TokenDTO> login(LoginDTO loginDTO, String clientIp) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            long retryAfterSeconds = loginThrottle.tryAcquire(loginDTO.getUsername(), clientIp);
+            if (retryAfterSeconds > 0) {
+                logger.warn("Login Throttled - Too many attempts for user or client");
+                loginTimer.record(OutcomeTimer.THROTTLED, start);
+                return Mono.error(new TooManyRequestsException("Too many login attempts, please retry later", retryAfterSeconds));
+            }
+
+            return authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(loginDTO.getUsername(), loginDTO.getPassword()))
+                    .onErrorMap(RejectedExecutionException.class,
+                            e -> new ServiceBusyException("Too many concurrent sign-in requests, please retry shortly", e))
+                    .map(authentication -> {
+                        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+                        tokenVersionRegistry.update(userDetails.getId(), userDetails.getTokenVersion());
+                        TokenDTO tokenDTO = new TokenDTO();
+                        tokenDTO.setToken(jwtUtil.generateToken(userDetails.getId(), userDetails.getUsername(),
+                                userDetails.getTokenVersion(), userDetails.getAuthorities()));
+                        logger.info("Login Success - Token generated for user: {}", userDetails.getUsername());
+                        loginTimer.record(OutcomeTimer.SUCCESS, start);
+                        return tokenDTO;
+                    })
+                    .onErrorMap(AuthenticationException.class, e -> {
+                        logger.error("Login Failed - Invalid username or password");
+                        loginTimer.record(OutcomeTimer.BAD_CREDENTIALS, start);
+                        return new InvalidTokenException("Login Failed - Invalid username or password");
+                    })
+                    .doOnError(ServiceBusyException.class, e -> loginTimer.record(OutcomeTimer.outcomeOf(e), start));
+        });
+    }
+
+    public Mono<TokenDTO> refresh(TokenDTO incomingTokenDTO) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            VerifiedToken verifiedToken = jwtUtil.verify(incomingTokenDTO.getToken());
+            String username = verifiedToken.getSubject();
+
+            return incrementTokenVersion(verifiedToken.getUserId(), username, verifiedToken.getTokenVersion())
+                    .flatMap(newTokenVersion -> userDetailsService.findByUsername(username)
+                            .map(userDetails -> {
+                                TokenDTO tokenDTO = new TokenDTO();
+                                tokenDTO.setToken(jwtUtil.generateToken(verifiedToken.getUserId(), username,
+                                        newTokenVersion, userDetails.getAuthorities()));
+                                logger.info("Token refreshed for user: {}", username);
+                                refreshTimer.record(OutcomeTimer.SUCCESS, start);
+                                return tokenDTO;
+                            }))
+                    .doOnError(e -> refreshTimer.record(OutcomeTimer.outcomeOf(e), start));
+        }).onErrorMap(e -> new InvalidTokenException("Token refresh failed", e));
+    }
+
+    public Mono<String> logout(TokenDTO incomingTokenDTO) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            VerifiedToken verifiedToken = jwtUtil.verify(incomingTokenDTO.getToken());
+            String username = verifiedToken.getSubject();
+
+            return incrementTokenVersion(verifiedToken.getUserId(), username, verifiedToken.getTokenVersion())
+                    .map(newTokenVersion -> {
+                        logger.info("Token invalidated for user: {}", username);
+                        logoutTimer.record(OutcomeTimer.SUCCESS, start);
+                        return "Logout successful";
+                    })
+                    .doOnError(e -> logoutTimer.record(OutcomeTimer.outcomeOf(e), start));
+        }).onErrorMap(e -> new InvalidTokenException("Logout failed", e));
+    }
+
+    public Mono<String> register(UserRegisterDTO userRegisterDTO) {
+        return availability(userRegisterDTO.getUsername(), userRegisterDTO.getEmail())
+                .flatMap(availability -> {
+                    if (Boolean.FALSE.equals(availability.getUsernameAvailable())) {
+                        logger.error("Register Failed - Username already taken");
+                        return Mono.error(new IllegalArgumentException("Register Failed - Username already taken"));
+                    }
+                    if (Boolean.FALSE.equals(availability.getEmailAvailable())) {
+                        logger.error("Register Failed - Email already taken");
+                        return Mono.error(new IllegalArgumentException("Register Failed - Email already taken"));
+                    }
+                    return Mono.fromCallable(() -> passwordEncoder.encode(userRegisterDTO.getPassword()))
+                            .subscribeOn(passwordHashingScheduler)
+                            .onErrorMap(RejectedExecutionException.class,
+                                    e -> new ServiceBusyException("Too many concurrent sign-in requests, please retry shortly", e));
+                })
+                .flatMap(passwordHash -> reactiveUserRepository.insertUser(UUID.randomUUID(), userRegisterDTO.getUsername(),
+                                passwordHash, userRegisterDTO.getEmail(), userRegisterDTO.getFirstName(),
+                                userRegisterDTO.getLastName(), "USER")
+                        .as(transactionalOperator::transactional)
+                        // Lost a race with a concurrent registration of the same name or a case variant of it
+                        .onErrorResume(DataIntegrityViolationException.class, e -> alreadyTaken(userRegisterDTO, e)))
+                .then(Mono.fromSupplier(() -> {
+                    logger.info("Register Success - User registered: {}", userRegisterDTO.getUsername());
+                    return "Register Success - User registered: " + userRegisterDTO.getUsername();
+                }));
+    }
+
+    private Mono<Void> alreadyTaken(UserRegisterDTO userRegisterDTO, DataIntegrityViolationException e) {
+        return availability(userRegisterDTO.getUsername(), userRegisterDTO.getEmail())
+                .flatMap(availability -> {
+                    String message = Boolean.FALSE.equals(availability.getEmailAvailable())
+                            && !Boolean.FALSE.equals(availability.getUsernameAvailable())
+                            ? "Register Failed - Email already taken" : "Register Failed - Username already taken";
+                    logger.error(message);
+                    return Mono.error(new IllegalArgumentException(message, e));
+                });
+    }
+
+    public Mono<AvailabilityDTO> availability(String username, String email) {
+        Mono<Boolean> usernameAvailable = username == null ? Mono.just(Boolean.TRUE)
+                : reactiveUserRepository.existsByUsername(username).map(exists -> !exists);
+        Mono<Boolean> emailAvailable = email == null ? Mono.just(Boolean.TRUE)
+                : reactiveUserRepository.existsByEmail(email).map(exists -> !exists);
+        return Mono.zip(usernameAvailable, emailAvailable)
+                .map(result -> new AvailabilityDTO(username == null ? null : result.getT1(),
+                        email == null ? null : result.getT2()));
+    }
+
+    /**
+     * Same conditional update as {@link AuthService#incrementTokenVersion}: only one caller holding a given
+     * token can move the version on, the others get a {@link TokenVersionMismatchException}.
+     */
+    public Mono<Integer> incrementTokenVersion(UUID userId, String username, int expectedTokenVersion) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return reactiveUserRepository.incrementTokenVersion(userId, expectedTokenVersion)
+                    .flatMap(updated -> {
+                        if (updated == 0) {
+                            tokenVersionBumpTimer.record(OutcomeTimer.VERSION_MISMATCH, start);
+                            return Mono.error(new TokenVersionMismatchException("Token version mismatch"));
+                        }
+                        tokenVersionBumpTimer.record(OutcomeTimer.SUCCESS, start);
+
+                        int newTokenVersion = expectedTokenVersion + 1;
+                        tokenVersionRegistry.update(userId, newTokenVersion);
+                        tokenVerifier.evictSubject(username);
+
+                        logger.info("Token version incremented for user: {}", username);
+                        return Mono.just(newTokenVersion);
+                    });
+        });
+    }
+}
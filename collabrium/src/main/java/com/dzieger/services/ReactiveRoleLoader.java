@@ -0,0 +1,50 @@
+package com.dzieger.services;
+
+import com.dzieger.repositories.ReactiveUserRepository;
+import com.dzieger.security.RoleAuthorities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds {@link RoleAuthorities} on the reactive profile. Role codes are only read here; they are assigned
+ * by {@link RoleRegistry} on the servlet stack, and roles without one travel as named authorities.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveRoleLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRoleLoader.class);
+
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final RoleAuthorities roleAuthorities;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    public ReactiveRoleLoader(ReactiveUserRepository reactiveUserRepository, RoleAuthorities roleAuthorities) {
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.roleAuthorities = roleAuthorities;
+        // Never block the event loop: the request that hit an unknown code is rejected, later ones see the reload
+        roleAuthorities.setReloader(this::reloadInBackground);
+    }
+
+    // Not @PostConstruct: R2DBC schema initialization is not ordered before ordinary beans
+    @EventListener(ApplicationStartedEvent.class)
+    public void load() {
+        roleAuthorities.update(reactiveUserRepository.findCodedRoles().collectList().block(Duration.ofSeconds(30)));
+    }
+
+    private void reloadInBackground() {
+        if (!reloading.compareAndSet(false, true)) {
+            return;
+        }
+        reactiveUserRepository.findCodedRoles().collectList()
+                .doFinally(signal -> reloading.set(false))
+                .subscribe(roleAuthorities::update, e -> logger.error("Reloading roles failed", e));
+    }
+}
@@ -0,0 +1,42 @@
+package com.dzieger.services;
+
+import com.dzieger.repositories.ReactiveUserRepository;
+import com.dzieger.security.OutcomeTimer;
+import com.dzieger.security.RoleAuthorities;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+@Service
+@Profile("reactive")
+public class ReactiveUserDetailsLookupService implements ReactiveUserDetailsService {
+
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final RoleAuthorities roleAuthorities;
+    private final OutcomeTimer lookupTimer;
+
+    public ReactiveUserDetailsLookupService(ReactiveUserRepository reactiveUserRepository, RoleAuthorities roleAuthorities,
+                                            MeterRegistry meterRegistry) {
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.roleAuthorities = roleAuthorities;
+        this.lookupTimer = new OutcomeTimer(meterRegistry, "collabrium.auth.user.lookup",
+                "Loading a user and their roles by username",
+                OutcomeTimer.SUCCESS, OutcomeTimer.NOT_FOUND);
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return reactiveUserRepository.findAuthPrincipalByUsername(username)
+                    .switchIfEmpty(Mono.error(() -> new UsernameNotFoundException("User not found: " + username)))
+                    .<UserDetails>map(principal -> new CustomUserDetails(principal, roleAuthorities.forNames(principal.getRoleNames())))
+                    .doOnSuccess(userDetails -> lookupTimer.record(OutcomeTimer.SUCCESS, start))
+                    .doOnError(e -> lookupTimer.record(OutcomeTimer.outcomeOf(e), start));
+        });
+    }
+}
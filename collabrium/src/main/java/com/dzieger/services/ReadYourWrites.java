@@ -0,0 +1,102 @@
+package com.dzieger.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps reads that must observe a recent write on the primary while read replicas catch up. Writers record
+ * the keys they touched (user id, username, email); for the configured window, read-only lookups of those
+ * keys are pinned to the primary instead of a replica. String keys are matched ignoring case, as the
+ * username and email lookups they guard are. The window is per instance: a write made through
+ * another instance is only visible here once the replica has it.
+ */
+@Component
+public class ReadYourWrites {
+
+    // Past this many tracked keys, expired ones are swept on a write, at most once per window
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final ConcurrentHashMap<Object, Long> writtenAt = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepMillis = new AtomicLong();
+
+    public ReadYourWrites(@Value("${collabrium.datasource.replica.urls:}") String replicaUrls,
+                          @Value("${collabrium.datasource.replica.read-your-writes-millis:2000}") long windowMillis) {
+        this.enabled = !replicaUrls.isBlank();
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Whether connections handed out on this thread have to come from the primary.
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    public void recordWrite(Object... keys) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Object key : keys) {
+            if (key != null) {
+                writtenAt.put(normalize(key), now);
+            }
+        }
+        if (writtenAt.size() > SWEEP_THRESHOLD) {
+            // One scan per window at most, however many keys are live, so bursts of writes stay O(1) each
+            long last = lastSweepMillis.get();
+            if (now - last >= windowMillis && lastSweepMillis.compareAndSet(last, now)) {
+                writtenAt.values().removeIf(at -> now - at >= windowMillis);
+            }
+        }
+    }
+
+    public boolean isRecentlyWritten(Object key) {
+        if (!enabled || key == null) {
+            return false;
+        }
+        Long at = writtenAt.get(normalize(key));
+        return at != null && System.currentTimeMillis() - at < windowMillis;
+    }
+
+    private static Object normalize(Object key) {
+        return key instanceof String string ? string.toLowerCase(Locale.ROOT) : key;
+    }
+
+    /**
+     * Runs the query against the primary if any of the keys was written within the window, otherwise
+     * lets read-only transactions go to a replica.
+     */
+    public <T> T read(Supplier<T> query, Object... keys) {
+        for (Object key : keys) {
+            if (isRecentlyWritten(key)) {
+                return onPrimary(query);
+            }
+        }
+        return query.get();
+    }
+
+    /**
+     * Runs the query against the primary regardless of recent writes, for lookups that must never be stale.
+     */
+    public <T> T onPrimary(Supplier<T> query) {
+        if (!enabled || isPrimaryRequired()) {
+            return query.get();
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+}
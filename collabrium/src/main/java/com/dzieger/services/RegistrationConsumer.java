@@ -0,0 +1,187 @@
+package com.dzieger.services;
+
+import com.dzieger.models.AppUser;
+import com.dzieger.models.DTOs.RegistrationCommand;
+import com.dzieger.models.Role;
+import com.dzieger.models.UserRole;
+import com.dzieger.repositories.RegistrationReservationRepository;
+import com.dzieger.repositories.RoleRepository;
+import com.dzieger.repositories.UserRepository;
+import com.dzieger.repositories.UserRoleRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persists queued registrations a poll at a time. Passwords are hashed in parallel on the consumer's own
+ * pool of {@code collabrium.registration.async.hashing-parallelism} threads, with a BCrypt encoder of its
+ * own rather than the offloading bean, so a signup burst never queues on the logins' hashing executor nor
+ * fails when logins have filled it. Then the users, their role mappings and the release of their
+ * reservations go to the database as JDBC batches in one transaction.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "collabrium.registration.mode", havingValue = "async")
+public class RegistrationConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationConsumer.class);
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final UserRoleRepository userRoleRepository;
+    private final RegistrationReservationRepository reservationRepository;
+    private final RoleRegistry roleRegistry;
+    private final AvailabilityService availabilityService;
+    private final ReadYourWrites readYourWrites;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService hashingPool;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public RegistrationConsumer(UserRepository userRepository, RoleRepository roleRepository,
+                                UserRoleRepository userRoleRepository, RegistrationReservationRepository reservationRepository,
+                                RoleRegistry roleRegistry, AvailabilityService availabilityService, ReadYourWrites readYourWrites,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${collabrium.registration.async.hashing-parallelism:4}") int hashingParallelism,
+                                @Value("${collabrium.registration.async.batch-size:100}") int batchSize) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.userRoleRepository = userRoleRepository;
+        this.reservationRepository = reservationRepository;
+        this.roleRegistry = roleRegistry;
+        this.availabilityService = availabilityService;
+        this.readYourWrites = readYourWrites;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hashingPool = Executors.newFixedThreadPool(hashingParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "registration-hashing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @KafkaListener(topics = "${collabrium.registration.async.topic:collabrium.registrations}",
+            groupId = "${collabrium.registration.async.group-id:collabrium-registrations}",
+            containerFactory = "registrationListenerContainerFactory")
+    public void register(List<RegistrationCommand> commands) {
+        // Records that could not be deserialized arrive as null and were already logged by the deserializer
+        List<Pending> pending = hash(commands.stream().filter(Objects::nonNull).toList());
+
+        List<Pending> saved;
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(pending));
+            saved = pending;
+        } catch (DataIntegrityViolationException e) {
+            // A name was taken between reserving and now; keep the rest of the batch
+            saved = new ArrayList<>(pending.size());
+            for (Pending registration : pending) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(registration)));
+                    saved.add(registration);
+                } catch (DataIntegrityViolationException duplicate) {
+                    reservationRepository.deleteById(RegistrationQueue.key(registration.command().username()));
+                    logger.error("Register Failed - Username or email already taken: {}", registration.command().username());
+                }
+            }
+        }
+
+        for (Pending registration : saved) {
+            RegistrationCommand command = registration.command();
+            availabilityService.record(command.username(), command.email());
+            readYourWrites.recordWrite(command.username(), command.email());
+            logger.info("Register Success - User registered: {}", command.username());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    private List<Pending> hash(List<RegistrationCommand> commands) {
+        List<Future<String>> hashes = new ArrayList<>(commands.size());
+        for (RegistrationCommand command : commands) {
+            hashes.add(hashingPool.submit(() -> passwordEncoder.encode(command.password())));
+        }
+
+        List<Pending> pending = new ArrayList<>(commands.size());
+        try {
+            for (int i = 0; i < commands.size(); i++) {
+                pending.add(new Pending(commands.get(i), hashes.get(i).get()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing registrations", e);
+        } catch (ExecutionException e) {
+            // Fails the batch, which the container then retries
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Hashing a registration failed", e.getCause());
+        } finally {
+            hashes.forEach(hash -> hash.cancel(true));
+        }
+        return pending;
+    }
+
+    private void persist(List<Pending> pending) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        Role userRole = roleRepository.getReferenceById(roleRegistry.requireByName("USER").id());
+
+        List<AppUser> users = new ArrayList<>(pending.size());
+        List<UserRole> userRoles = new ArrayList<>(pending.size());
+        List<String> reservations = new ArrayList<>(pending.size());
+        for (Pending registration : pending) {
+            RegistrationCommand command = registration.command();
+            AppUser appUser = new AppUser();
+            appUser.setUsername(command.username());
+            appUser.setPassword(registration.passwordHash());
+            appUser.setEmail(command.email());
+            appUser.setFirstName(command.firstName());
+            appUser.setLastName(command.lastName());
+            users.add(appUser);
+
+            UserRole userRoleMapping = new UserRole();
+            userRoleMapping.setUser(appUser);
+            userRoleMapping.setRole(userRole);
+            userRoles.add(userRoleMapping);
+
+            reservations.add(RegistrationQueue.key(command.username()));
+        }
+
+        userRepository.saveAll(users);
+        userRoleRepository.saveAll(userRoles);
+        reservationRepository.deleteAllByIdInBatch(reservations);
+        // Inside the transaction and through a repository, so a key violation surfaces here, translated
+        userRepository.flush();
+    }
+
+    private record Pending(RegistrationCommand command, String passwordHash) {
+    }
+}
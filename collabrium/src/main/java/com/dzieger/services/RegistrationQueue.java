@@ -0,0 +1,125 @@
+package com.dzieger.services;
+
+import com.dzieger.exceptions.ServiceBusyException;
+import com.dzieger.models.DTOs.RegistrationCommand;
+import com.dzieger.models.DTOs.UserRegisterDTO;
+import com.dzieger.repositories.RegistrationReservationRepository;
+import com.dzieger.repositories.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Request side of asynchronous registration. The request is validated, its username and email are reserved
+ * so a second signup for either is rejected straight away, and the command is published keyed by username.
+ * Hashing and inserting are left to {@link RegistrationConsumer}, so the caller only waits for the broker.
+ */
+@Service
+@Profile("!reactive")
+@ConditionalOnProperty(name = "collabrium.registration.mode", havingValue = "async")
+public class RegistrationQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationQueue.class);
+
+    private final KafkaTemplate<String, RegistrationCommand> kafkaTemplate;
+    private final RegistrationReservationRepository reservationRepository;
+    private final UserRepository userRepository;
+    private final ReadYourWrites readYourWrites;
+    private final Validator validator;
+    private final String topic;
+    private final long sendTimeoutMillis;
+    private final long reservationTtlMillis;
+
+    public RegistrationQueue(KafkaTemplate<String, RegistrationCommand> kafkaTemplate,
+                             RegistrationReservationRepository reservationRepository, UserRepository userRepository,
+                             ReadYourWrites readYourWrites, Validator validator,
+                             @Value("${collabrium.registration.async.topic:collabrium.registrations}") String topic,
+                             @Value("${collabrium.registration.async.send-timeout-millis:5000}") long sendTimeoutMillis,
+                             @Value("${collabrium.registration.async.reservation-ttl-millis:21600000}") long reservationTtlMillis) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.reservationRepository = reservationRepository;
+        this.userRepository = userRepository;
+        this.readYourWrites = readYourWrites;
+        this.validator = validator;
+        this.topic = topic;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.reservationTtlMillis = reservationTtlMillis;
+    }
+
+    public String submit(UserRegisterDTO userRegisterDTO) {
+        logger.info("Received register request");
+
+        // Nothing can be reported back once the command is queued, so everything that can fail early does
+        Set<ConstraintViolation<UserRegisterDTO>> violations = validator.validate(userRegisterDTO);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<UserRegisterDTO> violation = violations.iterator().next();
+            logger.error("Register Failed - Invalid {}", violation.getPropertyPath());
+            throw new IllegalArgumentException("Register Failed - " + violation.getPropertyPath() + " " + violation.getMessage());
+        }
+
+        String username = userRegisterDTO.getUsername();
+        String usernameKey = key(username);
+        String emailKey = key(userRegisterDTO.getEmail());
+        int reserved;
+        try {
+            reserved = reservationRepository.reserve(usernameKey, emailKey, Instant.now());
+        } catch (DataIntegrityViolationException e) {
+            reserved = 0;
+        }
+        if (reserved == 0) {
+            String message = isUsernameTaken(username, usernameKey)
+                    ? "Register Failed - Username already taken"
+                    : "Register Failed - Email already taken";
+            logger.error(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try {
+            kafkaTemplate.send(topic, usernameKey, RegistrationCommand.of(userRegisterDTO))
+                    .get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            reservationRepository.deleteById(usernameKey);
+            throw new ServiceBusyException("Registration could not be queued, please retry shortly", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reservationRepository.deleteById(usernameKey);
+            throw new ServiceBusyException("Interrupted while queueing the registration", e);
+        }
+
+        logger.info("Register Accepted - Registration queued for user: {}", username);
+        return "Register Accepted - Registration queued for user: " + username;
+    }
+
+    // Releases the names of commands that were never consumed, e.g. because they outlived the topic retention
+    @Scheduled(fixedDelayString = "${collabrium.registration.async.reservation-ttl-millis:21600000}")
+    public void releaseExpiredReservations() {
+        int released = reservationRepository.deleteReservedBefore(Instant.now().minusMillis(reservationTtlMillis));
+        if (released > 0) {
+            logger.warn("Released {} registration reservations that were never consumed", released);
+        }
+    }
+
+    static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private boolean isUsernameTaken(String username, String usernameKey) {
+        return reservationRepository.existsById(usernameKey)
+                || readYourWrites.onPrimary(() -> userRepository.findByUsername(username)).isPresent();
+    }
+}
@@ -0,0 +1,155 @@
+package com.dzieger.services;
+
+import com.dzieger.models.Role;
+import com.dzieger.repositories.RoleRepository;
+import com.dzieger.security.RoleAuthorities;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the roles table, loaded once at startup. Each role carries a small integer code
+ * that is persisted with the role, so it is stable across restarts and instances. Anything that writes
+ * to the roles table must call {@link #refresh()} afterwards. Lookups that miss reload on their own, but
+ * at most once per {@code min-reload-interval-millis}, so a stale role id or code arriving with every
+ * request does not turn into a roles query per request.
+ */
+@Component
+@Profile("!reactive")
+public class RoleRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleRegistry.class);
+
+    private final RoleRepository roleRepository;
+    private final RoleAuthorities roleAuthorities;
+    private final ReadYourWrites readYourWrites;
+    private final long minReloadIntervalMillis;
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+    private volatile long refreshedAtMillis;
+
+    public RoleRegistry(RoleRepository roleRepository, RoleAuthorities roleAuthorities, ReadYourWrites readYourWrites,
+                        @Value("${collabrium.roles.min-reload-interval-millis:5000}") long minReloadIntervalMillis) {
+        this.roleRepository = roleRepository;
+        this.roleAuthorities = roleAuthorities;
+        this.readYourWrites = readYourWrites;
+        this.minReloadIntervalMillis = minReloadIntervalMillis;
+        roleAuthorities.setReloader(this::reloadIfStale);
+    }
+
+    @PostConstruct
+    public synchronized void refresh() {
+        List<Role> roles = new ArrayList<>(readYourWrites.onPrimary(roleRepository::findAll));
+        roles.sort(Comparator.comparing(Role::getName));
+
+        int nextCode = roles.stream()
+                .map(Role::getCode)
+                .filter(code -> code != null)
+                .max(Integer::compare)
+                .map(code -> code + 1)
+                .orElse(0);
+        List<Role> uncoded = new ArrayList<>();
+        for (Role role : roles) {
+            if (role.getCode() == null) {
+                role.setCode(nextCode++);
+                uncoded.add(role);
+            }
+        }
+        if (!uncoded.isEmpty()) {
+            roleRepository.saveAll(uncoded);
+        }
+
+        List<RoleInfo> infos = new ArrayList<>(roles.size());
+        for (Role role : roles) {
+            infos.add(new RoleInfo(role.getCode(), role.getId(), role.getName().intern()));
+        }
+        snapshot = new Snapshot(infos);
+        refreshedAtMillis = System.currentTimeMillis();
+        roleAuthorities.update(infos);
+        logger.info("Role registry loaded with {} roles", infos.size());
+    }
+
+    public Optional<RoleInfo> findByName(String name) {
+        return Optional.ofNullable(snapshot.byName.get(name.toUpperCase(Locale.ROOT)));
+    }
+
+    public RoleInfo requireByName(String name) {
+        return findByName(name).orElseThrow(() -> new IllegalStateException("Role is not found: " + name));
+    }
+
+    public RoleInfo requireById(UUID id) {
+        RoleInfo role = snapshot.byId.get(id);
+        if (role == null) {
+            // A role may have been added through another instance; pick it up rather than failing the login
+            reloadIfStale();
+            role = snapshot.byId.get(id);
+        }
+        if (role == null) {
+            throw new IllegalStateException("Role is not found: " + id);
+        }
+        return role;
+    }
+
+    private void reloadIfStale() {
+        if (System.currentTimeMillis() - refreshedAtMillis < minReloadIntervalMillis) {
+            return;
+        }
+        synchronized (this) {
+            // Whoever waited on the lock behind a reload uses its result
+            if (System.currentTimeMillis() - refreshedAtMillis >= minReloadIntervalMillis) {
+                refresh();
+            }
+        }
+    }
+
+    public Optional<RoleInfo> findByCode(int code) {
+        RoleInfo[] byCode = snapshot.byCode;
+        return code >= 0 && code < byCode.length ? Optional.ofNullable(byCode[code]) : Optional.empty();
+    }
+
+    public List<RoleInfo> getRoles() {
+        return snapshot.roles;
+    }
+
+    public record RoleInfo(int code, UUID id, String name) {
+    }
+
+    private static final class Snapshot {
+
+        private final List<RoleInfo> roles;
+        private final Map<String, RoleInfo> byName;
+        private final Map<UUID, RoleInfo> byId;
+        private final RoleInfo[] byCode;
+
+        private Snapshot(List<RoleInfo> roles) {
+            Map<String, RoleInfo> byName = new HashMap<>();
+            Map<UUID, RoleInfo> byId = new HashMap<>();
+            int maxCode = -1;
+            for (RoleInfo role : roles) {
+                byName.put(role.name().toUpperCase(Locale.ROOT), role);
+                byId.put(role.id(), role);
+                maxCode = Math.max(maxCode, role.code());
+            }
+            RoleInfo[] byCode = new RoleInfo[maxCode + 1];
+            for (RoleInfo role : roles) {
+                byCode[role.code()] = role;
+            }
+
+            this.roles = List.copyOf(roles);
+            this.byName = Map.copyOf(byName);
+            this.byId = Map.copyOf(byId);
+            this.byCode = byCode;
+        }
+    }
+}
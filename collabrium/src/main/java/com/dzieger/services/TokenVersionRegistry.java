@@ -0,0 +1,193 @@
+package com.dzieger.services;
+
+import com.dzieger.repositories.UserRepository;
+import com.dzieger.security.ServerTiming;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Current tokenVersion per user id, so the request path can reject revoked tokens without a query.
+ * Versions only ever move forward: a stale read from the database can never overwrite a newer bump.
+ * Entries are reloaded once they are older than the configured ttl so bumps made by other instances are
+ * picked up, and the least recently used entries are dropped once the table grows past max-entries.
+ * The reactive stack has no JPA repository and loads misses itself, see {@link #getCachedTokenVersion}.
+ */
+@Component
+public class TokenVersionRegistry implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+    public static final int NOT_CACHED = -1;
+
+    private final UserRepository userRepository;
+    private final ReadYourWrites readYourWrites;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<UUID, Entry> versions = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TokenVersionRegistry(@Nullable UserRepository userRepository, ReadYourWrites readYourWrites,
+                                @Value("${collabrium.security.token-version-cache.max-entries:100000}") int maxEntries,
+                                @Value("${collabrium.security.token-version-cache.ttl-millis:30000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.readYourWrites = readYourWrites;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public int getTokenVersion(UUID userId) {
+        int cached = getCachedTokenVersion(userId);
+        if (cached != NOT_CACHED) {
+            return cached;
+        }
+        if (userRepository == null) {
+            throw new IllegalStateException("No blocking user repository to load token versions from");
+        }
+
+        long start = System.nanoTime();
+        int version;
+        try {
+            version = readYourWrites.read(() -> userRepository.findTokenVersionById(userId), userId)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userId));
+        } finally {
+            ServerTiming.record(ServerTiming.Phase.DB, start);
+        }
+        return update(userId, version);
+    }
+
+    /**
+     * Returns the fresh cached version, or {@link #NOT_CACHED} if it has to be loaded and passed to {@link #update}.
+     */
+    public int getCachedTokenVersion(UUID userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = versions.get(userId);
+        if (entry != null && now - entry.loadedAtMillis < ttlMillis) {
+            hits.increment();
+            entry.lastAccessMillis = now;
+            return entry.version;
+        }
+        misses.increment();
+        return NOT_CACHED;
+    }
+
+    /**
+     * Records a version read from or written to the database and returns the version now held,
+     * which is the newer of the two if another thread got there first.
+     */
+    public int update(UUID userId, int version) {
+        long now = System.currentTimeMillis();
+        Entry entry = versions.compute(userId, (id, existing) ->
+                new Entry(existing == null ? version : Math.max(existing.version, version), now));
+        if (versions.size() > maxEntries) {
+            evictLeastRecentlyUsed();
+        }
+        return entry.version;
+    }
+
+    public void invalidate(UUID userId) {
+        versions.remove(userId);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return versions.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("collabrium.token.version.cache", this, TokenVersionRegistry::getHitCount)
+                .description("Token version lookups by result")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("collabrium.token.version.cache", this, TokenVersionRegistry::getMissCount)
+                .description("Token version lookups by result")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("collabrium.token.version.cache.evictions", this, TokenVersionRegistry::getEvictionCount)
+                .description("Token versions dropped to stay under max-entries")
+                .register(meterRegistry);
+        Gauge.builder("collabrium.token.version.cache.size", this, TokenVersionRegistry::size)
+                .description("Users whose token version is held in memory")
+                .register(meterRegistry);
+    }
+
+    private void evictLeastRecentlyUsed() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int target = maxEntries - Math.max(1, maxEntries / 10);
+            int excess = versions.size() - target;
+            if (excess <= 0) {
+                return;
+            }
+
+            long[] accessTimes = new long[versions.size()];
+            int count = 0;
+            for (Entry entry : versions.values()) {
+                if (count == accessTimes.length) {
+                    break;
+                }
+                accessTimes[count++] = entry.lastAccessMillis;
+            }
+            if (count == 0) {
+                return;
+            }
+            Arrays.sort(accessTimes, 0, count);
+            long cutoff = accessTimes[Math.min(excess, count) - 1];
+
+            for (Map.Entry<UUID, Entry> candidate : versions.entrySet()) {
+                if (candidate.getValue().lastAccessMillis <= cutoff
+                        && versions.remove(candidate.getKey(), candidate.getValue())) {
+                    evictions.increment();
+                }
+            }
+            logger.debug("Evicted token versions down to {} entries", versions.size());
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry {
+
+        private final int version;
+        private final long loadedAtMillis;
+        private volatile long lastAccessMillis;
+
+        private Entry(int version, long now) {
+            this.version = version;
+            this.loadedAtMillis = now;
+            this.lastAccessMillis = now;
+        }
+    }
+}
@@ -2,10 +2,12 @@ package com.dzieger.services;
 
 import com.dzieger.models.AppUser;
 import com.dzieger.repositories.UserRepository;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
+@Profile("!reactive")
 public class UserService {
 
     private final UserRepository userRepository;
@@ -0,0 +1,28 @@
+-- The tables as ddl-auto created them before migrations were introduced. Databases that already have them
+-- are baselined at this version and only pick up later migrations.
+
+CREATE TABLE users (
+    id            UUID         NOT NULL,
+    username      VARCHAR(255) NOT NULL,
+    password      VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    first_name    VARCHAR(255) NOT NULL,
+    last_name     VARCHAR(255) NOT NULL,
+    token_version INTEGER      NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id)
+);
+
+CREATE TABLE roles (
+    id   UUID         NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_roles PRIMARY KEY (id)
+);
+
+CREATE TABLE user_roles (
+    id      UUID NOT NULL,
+    user_id UUID,
+    role_id UUID,
+    CONSTRAINT pk_user_roles PRIMARY KEY (id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
@@ -0,0 +1,13 @@
+-- Same keys as the PostgreSQL migration. H2 has no expression indexes and computes generated columns on
+-- write without the STORED keyword.
+
+ALTER TABLE users ADD COLUMN username_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(username));
+ALTER TABLE users ADD COLUMN email_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(email));
+ALTER TABLE roles ADD COLUMN name_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(name));
+
+CREATE UNIQUE INDEX ux_users_username_lower ON users (username_lower);
+CREATE UNIQUE INDEX ux_users_email_lower ON users (email_lower);
+CREATE UNIQUE INDEX ux_roles_name_lower ON roles (name_lower);
+
+CREATE UNIQUE INDEX ux_user_roles_user_role ON user_roles (user_id, role_id);
+CREATE INDEX ix_user_roles_role ON user_roles (role_id);
@@ -0,0 +1,12 @@
+-- The roles every installation starts with, previously created by DatabaseSeederService on each boot.
+-- Databases it already seeded keep their rows; a code that is already taken is left for RoleRegistry to assign.
+
+INSERT INTO roles (id, name, code)
+SELECT CAST('6f0b7a52-1c3e-4d8a-9a51-3e0c2f7d9b01' AS UUID), 'ADMIN',
+       CASE WHEN EXISTS (SELECT 1 FROM roles WHERE code = 0) THEN NULL ELSE 0 END
+WHERE NOT EXISTS (SELECT 1 FROM roles WHERE name_lower = 'admin');
+
+INSERT INTO roles (id, name, code)
+SELECT CAST('6f0b7a52-1c3e-4d8a-9a51-3e0c2f7d9b02' AS UUID), 'USER',
+       CASE WHEN EXISTS (SELECT 1 FROM roles WHERE code = 1) THEN NULL ELSE 1 END
+WHERE NOT EXISTS (SELECT 1 FROM roles WHERE name_lower = 'user');
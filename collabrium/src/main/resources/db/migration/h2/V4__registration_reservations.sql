@@ -0,0 +1,12 @@
+-- Usernames and emails held for registrations that are queued but not yet persisted (collabrium.registration.mode=async).
+-- Keys are lower-cased by the application; rows are deleted with the insert of the user or once they expire.
+
+CREATE TABLE registration_reservations (
+    username_lower VARCHAR(255)             NOT NULL,
+    email_lower    VARCHAR(255)             NOT NULL,
+    reserved_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_registration_reservations PRIMARY KEY (username_lower),
+    CONSTRAINT uk_registration_reservations_email UNIQUE (email_lower)
+);
+
+CREATE INDEX ix_registration_reservations_reserved_at ON registration_reservations (reserved_at);
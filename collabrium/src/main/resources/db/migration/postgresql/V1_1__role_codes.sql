@@ -0,0 +1,6 @@
+-- The code behind the roles bitmask claim. Runs before the later migrations, which rely on it. A database
+-- baselined at V1 has the column only if ddl-auto added it before migrations existed, so both statements
+-- tolerate it already being there.
+
+ALTER TABLE roles ADD COLUMN IF NOT EXISTS code INTEGER;
+CREATE UNIQUE INDEX IF NOT EXISTS ux_roles_code ON roles (code);
@@ -0,0 +1,15 @@
+-- Usernames, emails and role names are unique regardless of case. The lower-case key is a stored generated
+-- column rather than an expression index so that H2 can use the same queries and indexes in tests.
+-- Fails on existing case-insensitive duplicates, which have to be resolved by hand first.
+
+ALTER TABLE users ADD COLUMN username_lower VARCHAR(255) GENERATED ALWAYS AS (lower(username)) STORED;
+ALTER TABLE users ADD COLUMN email_lower VARCHAR(255) GENERATED ALWAYS AS (lower(email)) STORED;
+ALTER TABLE roles ADD COLUMN name_lower VARCHAR(255) GENERATED ALWAYS AS (lower(name)) STORED;
+
+CREATE UNIQUE INDEX ux_users_username_lower ON users (username_lower);
+CREATE UNIQUE INDEX ux_users_email_lower ON users (email_lower);
+CREATE UNIQUE INDEX ux_roles_name_lower ON roles (name_lower);
+
+-- Foreign keys are not indexed implicitly; the unique pair also serves lookups by user_id
+CREATE UNIQUE INDEX ux_user_roles_user_role ON user_roles (user_id, role_id);
+CREATE INDEX ix_user_roles_role ON user_roles (role_id);
@@ -0,0 +1,59 @@
+package com.dzieger.benchmarks;
+
+import com.dzieger.models.AuthPrincipalView;
+import com.dzieger.security.RoleAuthorities;
+import com.dzieger.services.CustomUserDetails;
+import com.dzieger.services.RoleRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomUserDetailsBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int roles;
+
+    private CustomUserDetails userDetails;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> roleNames = new ArrayList<>(roles);
+        List<RoleRegistry.RoleInfo> roleInfos = new ArrayList<>(roles);
+        for (int i = 0; i < roles; i++) {
+            roleNames.add("ROLE_" + i);
+            roleInfos.add(new RoleRegistry.RoleInfo(i, UUID.randomUUID(), "ROLE_" + i));
+        }
+        // Resolved the way AllUserDetailsService does, to the set shared by every user with these roles
+        RoleAuthorities roleAuthorities = new RoleAuthorities();
+        roleAuthorities.update(roleInfos);
+        userDetails = new CustomUserDetails(new AuthPrincipalView(UUID.randomUUID(), "benchmark-user", "hash", 0,
+                roleNames), roleAuthorities.forNames(roleNames));
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userDetails.getAuthorities();
+    }
+}
@@ -0,0 +1,100 @@
+package com.dzieger.benchmarks;
+
+import com.dzieger.models.AuthPrincipalView;
+import com.dzieger.repositories.UserRepository;
+import com.dzieger.security.JwtAuthenticationFilter;
+import com.dzieger.security.JwtUtil;
+import com.dzieger.security.RoleAuthorities;
+import com.dzieger.security.SigningKeyRing;
+import com.dzieger.security.TokenVerifier;
+import com.dzieger.services.AuthService;
+import com.dzieger.services.CustomUserDetails;
+import com.dzieger.services.ReadYourWrites;
+import com.dzieger.services.RoleRegistry;
+import com.dzieger.services.TokenVersionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * One pass of {@link JwtAuthenticationFilter} for an authenticated request, with the token version
+ * already in the registry and a filter chain that does nothing. In the non-stateless mode the user
+ * details come from memory, so the numbers exclude the principal query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean statelessPrincipal;
+
+    private JwtAuthenticationFilter filter;
+    private String authorizationHeader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SigningKeyRing signingKeyRing = new SigningKeyRing("", "", "PKCS12", "", 0, "HS256");
+        RoleAuthorities roleAuthorities = new RoleAuthorities();
+        roleAuthorities.update(List.of(new RoleRegistry.RoleInfo(0, UUID.randomUUID(), "ADMIN"),
+                new RoleRegistry.RoleInfo(1, UUID.randomUUID(), "USER")));
+        JwtUtil jwtUtil = new JwtUtil(signingKeyRing, roleAuthorities, meterRegistry);
+        TokenVerifier tokenVerifier = new TokenVerifier(jwtUtil, signingKeyRing, meterRegistry, 4096);
+        TokenVersionRegistry tokenVersionRegistry = new TokenVersionRegistry(mock(UserRepository.class), new ReadYourWrites("", 0), 100_000,
+                TimeUnit.DAYS.toMillis(1));
+
+        UUID userId = UUID.randomUUID();
+        tokenVersionRegistry.update(userId, 0);
+        CustomUserDetails userDetails = new CustomUserDetails(new AuthPrincipalView(userId, "benchmark-user", "hash",
+                0, List.of("USER")), roleAuthorities.forNames(List.of("USER")));
+        UserDetailsService userDetailsService = username -> userDetails;
+
+        filter = new JwtAuthenticationFilter(jwtUtil, tokenVerifier, tokenVersionRegistry, userDetailsService,
+                mock(AuthService.class), meterRegistry, statelessPrincipal);
+        authorizationHeader = "Bearer " + jwtUtil.generateToken(userId, "benchmark-user", 0,
+                List.of(new SimpleGrantedAuthority("USER")));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authenticatedRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/secure/data");
+        request.setServletPath("/secure/data");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
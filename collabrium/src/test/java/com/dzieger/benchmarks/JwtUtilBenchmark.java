@@ -0,0 +1,104 @@
+package com.dzieger.benchmarks;
+
+import com.dzieger.security.JwtUtil;
+import com.dzieger.security.RoleAuthorities;
+import com.dzieger.security.SigningKeyRing;
+import com.dzieger.security.TokenVerifier;
+import com.dzieger.security.VerifiedToken;
+import com.dzieger.services.RoleRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification. The {@code jwtUtil*} benchmarks go through jjwt on every call, while the
+ * {@code tokenVerifier*} ones show what the request path actually pays: the uncached variant cycles
+ * through more distinct tokens than the verifier cache holds, the cached one replays a single token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtUtilBenchmark {
+
+    private static final int TOKENS = 1024;
+
+    @Param({"HS256", "RS256"})
+    public String algorithm;
+
+    private JwtUtil jwtUtil;
+    private TokenVerifier uncachedVerifier;
+    private TokenVerifier cachedVerifier;
+    private UUID userId;
+    private List<GrantedAuthority> authorities;
+    private String[] tokens;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SigningKeyRing signingKeyRing = new SigningKeyRing("", "", "PKCS12", "", 0, algorithm);
+        RoleAuthorities roleAuthorities = new RoleAuthorities();
+        roleAuthorities.update(List.of(new RoleRegistry.RoleInfo(0, UUID.randomUUID(), "ADMIN"),
+                new RoleRegistry.RoleInfo(1, UUID.randomUUID(), "USER")));
+        jwtUtil = new JwtUtil(signingKeyRing, roleAuthorities, meterRegistry);
+        uncachedVerifier = new TokenVerifier(jwtUtil, signingKeyRing, meterRegistry, 16);
+        cachedVerifier = new TokenVerifier(jwtUtil, signingKeyRing, meterRegistry, 4096);
+        userId = UUID.randomUUID();
+        authorities = List.of(new SimpleGrantedAuthority("USER"), new SimpleGrantedAuthority("ADMIN"));
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = jwtUtil.generateToken(userId, "user-" + i, i, authorities);
+        }
+    }
+
+    private String nextToken() {
+        String token = tokens[next];
+        next = (next + 1) & (TOKENS - 1);
+        return token;
+    }
+
+    @Benchmark
+    public String jwtUtilGenerateToken() {
+        return jwtUtil.generateToken(userId, "benchmark-user", 7, authorities);
+    }
+
+    @Benchmark
+    public boolean jwtUtilValidateToken() {
+        return jwtUtil.validateToken(tokens[0], 0);
+    }
+
+    @Benchmark
+    public List<String> jwtUtilExtractAuthorities() {
+        return jwtUtil.extractAuthorities(tokens[0]);
+    }
+
+    @Benchmark
+    public VerifiedToken tokenVerifierUncached() {
+        return uncachedVerifier.verify(nextToken());
+    }
+
+    @Benchmark
+    public VerifiedToken tokenVerifierCached() {
+        return cachedVerifier.verify(tokens[0]);
+    }
+}
@@ -0,0 +1,69 @@
+package com.dzieger.benchmarks;
+
+import com.dzieger.security.LoginThrottle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single {@link LoginThrottle#tryAcquire} call. The shared-key benchmarks have every thread
+ * hammering the same username and IP, which is the worst case for the CAS loop; the spread-key
+ * benchmarks look more like credential stuffing across many accounts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginThrottleBenchmark {
+
+    private static final int KEYS = 4096;
+
+    private LoginThrottle throttle;
+    private String[] usernames;
+    private String[] ips;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Limits high enough that the benchmark measures the check itself, not the rejection path
+        throttle = new LoginThrottle(1_000_000, 60_000_000, 1_000_000, 60_000_000, 100_000);
+        usernames = new String[KEYS];
+        ips = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            usernames[i] = "user-" + i;
+            ips[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long sharedKeySingleThread() {
+        return throttle.tryAcquire(usernames[0], ips[0]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long sharedKeyContended() {
+        return throttle.tryAcquire(usernames[0], ips[0]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long spreadKeysContended() {
+        int i = ThreadLocalRandom.current().nextInt(KEYS);
+        return throttle.tryAcquire(usernames[i], ips[i]);
+    }
+}
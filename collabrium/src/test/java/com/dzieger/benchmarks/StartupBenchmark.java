@@ -0,0 +1,126 @@
+package com.dzieger.benchmarks;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import org.flywaydb.core.Flyway;
+import org.h2.Driver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cold start of the packaged application, from launching its JVM until the context has refreshed, adding
+ * the fast-start measures one at a time. Every sample is a new process against an H2 file database migrated
+ * up front, as for an instance joining a running deployment. Needs the jar built with the AOT code:
+ * {@code mvn -Pbenchmark,fast-start package exec:exec -DskipTests -Dbenchmark.include=StartupBenchmark}
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final Path TARGET = Path.of("target").toAbsolutePath();
+    private static final Path WORK = TARGET.resolve("startup-benchmark");
+    private static final Path APP = WORK.resolve("app");
+    private static final String URL = "jdbc:h2:file:" + WORK.resolve("db").resolve("collabrium") + ";DATABASE_TO_LOWER=TRUE";
+
+    @Param({"default", "fast-start", "fast-start-aot", "fast-start-aot-cds"})
+    public String mode;
+
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        FileSystemUtils.deleteRecursively(WORK);
+        Files.createDirectories(WORK);
+        Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .locations("classpath:db/migration/h2")
+                .schemas("collabrium")
+                .defaultSchema("collabrium")
+                .load()
+                .migrate();
+
+        Path jar = applicationJar();
+        run(TARGET, List.of(java(), "-Djarmode=tools", "-jar", jar.toString(), "extract", "--destination", APP.toString()));
+
+        command = new ArrayList<>(List.of(java(), "-Dspring.context.exit=onRefresh"));
+        if (mode.contains("aot")) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.addAll(List.of(
+                "-cp", jar.getFileName() + File.pathSeparator + Path.of(Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()),
+                CollabriumApplication.class.getName(),
+                "--spring.profiles.active=" + (mode.startsWith("fast-start") ? "prod,fast-start" : "prod"),
+                "--spring.datasource.url=" + URL,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--collabrium.security.keys.keystore-path=",
+                "--collabrium.security.keys.keystore-password=",
+                "--collabrium.security.keys.active-kid="));
+
+        if (mode.endsWith("cds")) {
+            // Training run: the same start, recording the classes it loads
+            List<String> training = new ArrayList<>(command);
+            training.add(1, "-XX:ArchiveClassesAtExit=collabrium.jsa");
+            run(APP, training);
+            command.add(1, "-XX:SharedArchiveFile=collabrium.jsa");
+        }
+    }
+
+    @Benchmark
+    public int start() throws Exception {
+        return run(APP, command);
+    }
+
+    private static int run(Path directory, List<String> command) throws IOException, InterruptedException {
+        Path log = WORK.resolve("application.log");
+        Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        int exit = process.waitFor();
+        if (exit != 0) {
+            throw new IllegalStateException("Exited with " + exit + ", see " + log + ": " + String.join(" ", command));
+        }
+        return exit;
+    }
+
+    private static Path applicationJar() throws IOException {
+        try (Stream<Path> files = Files.list(TARGET)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No application jar in " + TARGET + ", run mvn package first"));
+        }
+    }
+
+    private static String java() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.dzieger.collabrium;
+
+import com.dzieger.models.DTOs.UserRegisterDTO;
+import com.dzieger.services.AllUserDetailsService;
+import com.dzieger.services.AuthService;
+import com.dzieger.services.CustomUserDetails;
+import com.dzieger.services.TokenVersionRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = CollabriumApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+        "collabrium.datasource.replica.urls=" + ReplicaDataSourceConfigTests.REPLICA_URL,
+        "collabrium.datasource.replica.read-your-writes-millis=" + ReplicaDataSourceConfigTests.WINDOW_MILLIS
+})
+@ActiveProfiles("test")
+class ReplicaDataSourceConfigTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+    static final long WINDOW_MILLIS = 300;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private AllUserDetailsService allUserDetailsService;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readOnlyLookupsUseTheReplicaOutsideTheReadYourWritesWindow() throws Exception {
+        replicate();
+        authService.register(new UserRegisterDTO("routed", "secret", "routed@example.com", "Ro", "Uted"));
+
+        // Just written through this instance, so read from the primary although the replica has no such user
+        assertEquals("routed", allUserDetailsService.loadUserByUsername("routed").getUsername());
+
+        Thread.sleep(WINDOW_MILLIS + 100);
+        assertThrows(UsernameNotFoundException.class, () -> allUserDetailsService.loadUserByUsername("routed"));
+
+        replicate();
+        CustomUserDetails user = (CustomUserDetails) allUserDetailsService.loadUserByUsername("routed");
+        assertEquals(0, user.getTokenVersion());
+
+        authService.incrementTokenVersion(user.getId(), "routed", 0);
+        tokenVersionRegistry.invalidate(user.getId());
+        assertEquals(1, tokenVersionRegistry.getTokenVersion(user.getId()));
+
+        Thread.sleep(WINDOW_MILLIS + 100);
+        tokenVersionRegistry.invalidate(user.getId());
+        assertEquals(0, tokenVersionRegistry.getTokenVersion(user.getId()));
+    }
+
+    @Test
+    void mixedCaseRegistrationIsReadFromThePrimaryWithinTheWindow() throws Exception {
+        replicate();
+        authService.register(new UserRegisterDTO("MixedCase", "secret", "Mixed.Case@Example.com", "Mixed", "Case"));
+
+        assertEquals("MixedCase", allUserDetailsService.loadUserByUsername("mixedcase").getUsername());
+        assertEquals("MixedCase", allUserDetailsService.loadUserByUsername("MIXEDCASE").getUsername());
+
+        Thread.sleep(WINDOW_MILLIS + 100);
+        assertThrows(UsernameNotFoundException.class, () -> allUserDetailsService.loadUserByUsername("mixedcase"));
+    }
+
+    /**
+     * Stands in for replication: copies the primary as it is now over the replica.
+     */
+    private void replicate() throws Exception {
+        String script = tempDir.resolve("primary.sql").toString();
+        jdbcTemplate.execute("SCRIPT TO '" + script + "'");
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM '" + script + "'");
+        }
+    }
+}
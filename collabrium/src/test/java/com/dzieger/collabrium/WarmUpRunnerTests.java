@@ -0,0 +1,73 @@
+package com.dzieger.collabrium;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = {CollabriumApplication.class, WarmUpRunnerTests.ReadinessListener.class}, properties = {
+        "collabrium.warmup.enabled=true",
+        "collabrium.warmup.token-cycles=" + WarmUpRunnerTests.TOKEN_CYCLES,
+        "collabrium.warmup.password-checks=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WarmUpRunnerTests {
+
+    static final int TOKEN_CYCLES = 200;
+
+    @Autowired
+    private ReadinessListener readinessListener;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void readinessFlipsOnlyOnceTheWarmUpHasRun() throws Exception {
+        assertTrue(readinessListener.warmUpCompleteWhenAccepting);
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, applicationAvailability.getReadinessState());
+        assertEquals(TOKEN_CYCLES, meterRegistry.get("collabrium.jwt.verify").tag("outcome", "success").timer().count());
+
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+
+    @TestConfiguration
+    static class ReadinessListener {
+
+        private final WarmUpRunner warmUpRunner;
+        volatile boolean warmUpCompleteWhenAccepting;
+
+        ReadinessListener(WarmUpRunner warmUpRunner) {
+            this.warmUpRunner = warmUpRunner;
+        }
+
+        @EventListener
+        void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                warmUpCompleteWhenAccepting = warmUpRunner.isComplete();
+            }
+        }
+    }
+}
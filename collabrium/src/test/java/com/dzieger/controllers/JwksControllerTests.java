@@ -0,0 +1,80 @@
+package com.dzieger.controllers;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.dzieger.security.JwtUtil;
+import com.dzieger.security.TokenVerifier;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CollabriumApplication.class, properties = "collabrium.security.keys.local-algorithm=RS256")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JwksControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenVerifier tokenVerifier;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void publishedKeysVerifyIssuedTokens() throws Exception {
+        UUID userId = UUID.randomUUID();
+        String token = jwtUtil.generateToken(userId, "carol", 2, List.of(new SimpleGrantedAuthority("USER")));
+        assertEquals("carol", tokenVerifier.verify(token).getSubject());
+
+        MvcResult result = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertFalse(etag == null || etag.isEmpty());
+
+        JsonNode header = objectMapper.readTree(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+        JsonNode jwk = objectMapper.readTree(result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .get("keys").get(0);
+        assertEquals(header.get("kid").asText(), jwk.get("kid").asText());
+        assertEquals("RS256", jwk.get("alg").asText());
+
+        PublicKey publicKey = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                new BigInteger(1, Base64.getUrlDecoder().decode(jwk.get("n").asText())),
+                new BigInteger(1, Base64.getUrlDecoder().decode(jwk.get("e").asText()))));
+        String subject = Jwts.parserBuilder().setSigningKey(publicKey).build()
+                .parseClaimsJws(token).getBody().getSubject();
+        assertEquals("carol", subject);
+
+        mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+}
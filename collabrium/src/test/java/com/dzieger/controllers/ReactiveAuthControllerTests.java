@@ -0,0 +1,125 @@
+package com.dzieger.controllers;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.dzieger.models.DTOs.TokenDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = CollabriumApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.r2dbc.url=r2dbc:h2:mem:///reactive-auth;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+                "spring.flyway.url=jdbc:h2:mem:reactive-auth;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE"
+        })
+@ActiveProfiles({"test", "reactive"})
+class ReactiveAuthControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    void authFlowRunsOnTheReactiveStack() {
+        assertInstanceOf(ReactiveWebServerApplicationContext.class, applicationContext);
+
+        post("/auth/register", Map.of("username", "reactive", "password", "secret", "email", "reactive@example.com",
+                "firstName", "Re", "lastName", "Active"))
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Register Success - User registered: reactive");
+        post("/auth/register", Map.of("username", "reactive", "password", "secret", "email", "other@example.com",
+                "firstName", "Re", "lastName", "Active"))
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri("/auth/availability?username=reactive&email=free@example.com").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.usernameAvailable").isEqualTo(false)
+                .jsonPath("$.emailAvailable").isEqualTo(true);
+
+        post("/auth/login", Map.of("username", "reactive", "password", "wrong"))
+                .expectStatus().isUnauthorized();
+        String token = login();
+
+        getSecure(null).expectStatus().isForbidden();
+        getSecure("not-a-token").expectStatus().isForbidden();
+        getSecure(token).expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("This is a secure endpoint!");
+
+        String refreshed = post("/auth/refresh", Map.of("token", token))
+                .expectStatus().isOk()
+                .expectBody(TokenDTO.class).returnResult().getResponseBody().getToken();
+        getSecure(token).expectStatus().isForbidden();
+        getSecure(refreshed).expectStatus().isOk();
+        post("/auth/refresh", Map.of("token", token)).expectStatus().isUnauthorized();
+
+        post("/auth/logout", Map.of("token", refreshed))
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Logout successful");
+        getSecure(refreshed).expectStatus().isForbidden();
+        getSecure(login()).expectStatus().isOk();
+    }
+
+    @Test
+    void concurrentRegistrationsOfOneNameLetExactlyOneThrough() throws Exception {
+        List<String> variants = List.of("Racer", "racer", "RACER", "rAcEr", "Racer", "racer", "RACER", "raceR");
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatusCode>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(variants.size())) {
+            for (int i = 0; i < variants.size(); i++) {
+                Map<String, String> body = Map.of("username", variants.get(i), "password", "secret",
+                        "email", "racer-" + i + "@example.com", "firstName", "Ra", "lastName", "Cer");
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return post("/auth/register", body).returnResult(String.class).getStatus();
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<HttpStatusCode> result : results) {
+                HttpStatusCode status = result.get();
+                assertTrue(status == HttpStatus.OK || status == HttpStatus.BAD_REQUEST, status::toString);
+                created += status == HttpStatus.OK ? 1 : 0;
+            }
+            assertEquals(1, created);
+        }
+    }
+
+    private String login() {
+        return post("/auth/login", Map.of("username", "reactive", "password", "secret"))
+                .expectStatus().isOk()
+                .expectBody(TokenDTO.class).returnResult().getResponseBody().getToken();
+    }
+
+    private WebTestClient.ResponseSpec post(String path, Object body) {
+        return webTestClient.post().uri(path).contentType(MediaType.APPLICATION_JSON).bodyValue(body).exchange();
+    }
+
+    private WebTestClient.ResponseSpec getSecure(String token) {
+        WebTestClient.RequestHeadersSpec<?> request = webTestClient.get().uri("/secure/data");
+        if (token != null) {
+            request = request.header("Authorization", "Bearer " + token);
+        }
+        return request.exchange();
+    }
+}
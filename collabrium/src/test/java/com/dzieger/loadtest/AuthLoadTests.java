@@ -0,0 +1,277 @@
+package com.dzieger.loadtest;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Closed-loop load test against the full stack on H2: every worker owns one user and issues requests
+ * back to back in the configured mix, and latencies are recorded per endpoint once the warm-up is over.
+ * Each worker has its own user because a refresh or logout revokes every token of that user.
+ *
+ * <pre>
+ * mvn test -Dtest=AuthLoadTests -Dloadtest=true -Dloadtest.concurrency=16 -Dloadtest.duration-seconds=60
+ * </pre>
+ *
+ * Optional properties: {@code loadtest.warmup-seconds} and {@code loadtest.mix}, for example
+ * {@code secure:80,refresh:10,login:6,logout:2,register:2}. Percentile distributions are written to
+ * {@code target/loadtest} for plotting.
+ */
+@SpringBootTest(classes = CollabriumApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "collabrium.security.login-throttle.username.capacity=1000000000",
+                "collabrium.security.login-throttle.username.refill-per-minute=1000000000",
+                "collabrium.security.login-throttle.ip.capacity=1000000000",
+                "collabrium.security.login-throttle.ip.refill-per-minute=1000000000",
+                "logging.level.root=WARN",
+                "logging.level.org.springframework.security=WARN",
+                "logging.level.com.dzieger.collabrium=WARN",
+                "logging.level.com.dzieger.loadtest=INFO"
+        })
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class AuthLoadTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthLoadTests.class);
+
+    private static final String PASSWORD = "load-test-password";
+
+    private final int concurrency = Integer.getInteger("loadtest.concurrency",
+            Runtime.getRuntime().availableProcessors() * 4);
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10));
+    private final Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30));
+    private final Map<Endpoint, Integer> mix = parseMix(System.getProperty("loadtest.mix",
+            "secure:80,refresh:10,login:6,logout:2,register:2"));
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicLong registrations = new AtomicLong();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void authenticationMix() throws Exception {
+        List<Worker> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            String username = "load-" + i;
+            Response registered = register(username);
+            assertEquals(200, registered.status(), registered.body());
+            workers.add(new Worker(username));
+        }
+
+        logger.info("Running {} workers for {}s after {}s warm-up, mix {}", concurrency, duration.toSeconds(),
+                warmup.toSeconds(), mix);
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Worker worker : workers) {
+                futures.add(executor.submit(() -> worker.run(measureFrom, measureUntil)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, Long> errors = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram merged = new Histogram(3);
+            long failed = 0;
+            for (Worker worker : workers) {
+                merged.add(worker.latencies.get(endpoint));
+                failed += worker.errors.get(endpoint);
+            }
+            latencies.put(endpoint, merged);
+            errors.put(endpoint, failed);
+        }
+
+        report(latencies, errors);
+        for (Endpoint endpoint : Endpoint.values()) {
+            assertEquals(0L, errors.get(endpoint), "Failed " + endpoint + " requests");
+        }
+    }
+
+    private void report(Map<Endpoint, Histogram> latencies, Map<Endpoint, Long> errors) throws IOException {
+        Path output = Path.of("target", "loadtest");
+        Files.createDirectories(output);
+
+        long total = 0;
+        StringBuilder table = new StringBuilder(String.format("%n%-10s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            total += histogram.getTotalCount();
+            table.append(String.format("%-10s %10d %8d %10.2f %10.2f %10.2f %10.2f%n", endpoint.name().toLowerCase(),
+                    histogram.getTotalCount(), errors.get(endpoint), millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+
+            try (PrintStream out = new PrintStream(Files.newOutputStream(
+                    output.resolve(endpoint.name().toLowerCase() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1_000_000.0);
+            }
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double throughput = total / (double) duration.toSeconds();
+        table.append(String.format("%nthroughput: %.0f req/s, %.0f req/s per core (%d cores, %d workers)",
+                throughput, throughput / cores, cores, concurrency));
+        logger.info(table.toString());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private Response register(String username) throws IOException, InterruptedException {
+        return post("/auth/register", Map.of("username", username, "password", PASSWORD,
+                "email", username + "@load.test", "firstName", "Load", "lastName", "Test"));
+    }
+
+    private Response post(String path, Object body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return new Response(response.statusCode(), response.body());
+    }
+
+    private Response get(String path, String token) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return new Response(response.statusCode(), response.body());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            weights.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    private enum Endpoint {
+        REGISTER, LOGIN, REFRESH, LOGOUT, SECURE
+    }
+
+    private record Response(int status, String body) {
+    }
+
+    private final class Worker {
+
+        private final String username;
+        private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, Long> errors = new EnumMap<>(Endpoint.class);
+        private final Endpoint[] schedule;
+        private String token;
+
+        private Worker(String username) {
+            this.username = username;
+            List<Endpoint> slots = new ArrayList<>();
+            for (Endpoint endpoint : Endpoint.values()) {
+                latencies.put(endpoint, new Histogram(3));
+                errors.put(endpoint, 0L);
+                for (int i = 0; i < mix.getOrDefault(endpoint, 0); i++) {
+                    slots.add(endpoint);
+                }
+            }
+            this.schedule = slots.toArray(new Endpoint[0]);
+        }
+
+        private void run(long measureFrom, long measureUntil) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < measureUntil) {
+                Endpoint endpoint = token == null ? Endpoint.LOGIN : schedule[random.nextInt(schedule.length)];
+                Response response;
+                try {
+                    response = execute(endpoint);
+                } catch (IOException | InterruptedException e) {
+                    response = new Response(-1, e.toString());
+                }
+                long elapsed = System.nanoTime() - now;
+
+                if (now >= measureFrom) {
+                    latencies.get(endpoint).recordValue(elapsed);
+                    if (response.status() != 200) {
+                        errors.merge(endpoint, 1L, Long::sum);
+                        logger.warn("{} failed for {}: {} {}", endpoint, username, response.status(), response.body());
+                    }
+                }
+            }
+        }
+
+        private Response execute(Endpoint endpoint) throws IOException, InterruptedException {
+            Response response;
+            switch (endpoint) {
+                case LOGIN -> {
+                    response = post("/auth/login", Map.of("username", username, "password", PASSWORD));
+                    token = response.status() == 200 ? readToken(response) : null;
+                }
+                case REFRESH -> {
+                    response = post("/auth/refresh", Map.of("token", token));
+                    token = response.status() == 200 ? readToken(response) : null;
+                }
+                case LOGOUT -> {
+                    response = post("/auth/logout", Map.of("token", token));
+                    token = null;
+                }
+                case SECURE -> response = get("/secure/data", token);
+                case REGISTER -> response = register(username + "-r" + registrations.incrementAndGet());
+                default -> throw new IllegalStateException("Unknown endpoint " + endpoint);
+            }
+            return response;
+        }
+
+        private String readToken(Response response) throws IOException {
+            return objectMapper.readTree(response.body()).get("token").asText();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.dzieger.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlywayBaselineTests {
+
+    @Test
+    void databaseBaselinedAtV1GainsRoleCodes() {
+        DriverManagerDataSource dataSource = dataSource();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // The schema ddl-auto created before migrations existed, with the roles the seeder used to insert
+        jdbcTemplate.execute("RUNSCRIPT FROM 'classpath:db/migration/h2/V1__baseline.sql'");
+        UUID adminId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO roles (id, name) VALUES (?, 'ADMIN')", adminId);
+        jdbcTemplate.update("INSERT INTO roles (id, name) VALUES (?, 'USER')", UUID.randomUUID());
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .schemas("collabrium")
+                .defaultSchema("collabrium")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        flyway.migrate();
+
+        assertEquals(List.of("1", "1.1", "2", "3", "4"), Arrays.stream(flyway.info().applied())
+                .map(migration -> migration.getVersion().getVersion())
+                .toList());
+        // The seeded rows are kept; their codes are left for RoleRegistry to assign
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM roles WHERE code IS NULL", Integer.class));
+        jdbcTemplate.update("UPDATE roles SET code = 0 WHERE id = ?", adminId);
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("UPDATE roles SET code = 0 WHERE name = 'USER'"));
+        assertTrue(flyway.validateWithResult().validationSuccessful);
+    }
+
+    private static DriverManagerDataSource dataSource() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baseline-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE"
+                        + ";INIT=CREATE SCHEMA IF NOT EXISTS collabrium\\;SET SCHEMA collabrium", "sa", "");
+        dataSource.setDriverClassName("org.h2.Driver");
+        return dataSource;
+    }
+}
@@ -0,0 +1,95 @@
+package com.dzieger.repositories;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.dzieger.models.AppUser;
+import com.dzieger.models.Role;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = CollabriumApplication.class, properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.dzieger.repositories.SchemaIndexTests$CapturingInspector")
+@ActiveProfiles("test")
+class SchemaIndexTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void lookupsByUsernameEmailAndRoleNameUseIndexes() {
+        assertIndexed(() -> userRepository.findByUsername("ADMIN"));
+        assertIndexed(() -> userRepository.findByEmail("n/a"));
+        assertIndexed(() -> userRepository.findAuthPrincipalRows("Admin"));
+        assertIndexed(() -> userRepository.findUsernameAndEmailMatches("admin", "someone@example.com"));
+        assertIndexed(() -> roleRepository.findByNameIgnoreCase("user"));
+
+        assertTrue(userRepository.findByUsername("ADMIN").isPresent());
+        assertFalse(userRepository.findAuthPrincipalRows("Admin").isEmpty());
+        assertTrue(roleRepository.findByNameIgnoreCase("user").isPresent());
+    }
+
+    @Test
+    void usernamesEmailsAndRoleNamesAreUniqueIgnoringCase() {
+        userRepository.saveAndFlush(user("Casey", "casey@example.com"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userRepository.saveAndFlush(user("CASEY", "other@example.com")));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userRepository.saveAndFlush(user("casey2", "Casey@Example.com")));
+        assertThrows(DataIntegrityViolationException.class, () -> roleRepository.saveAndFlush(new Role("admin")));
+    }
+
+    private void assertIndexed(Runnable query) {
+        CapturingInspector.STATEMENTS.clear();
+        query.run();
+        List<String> statements = List.copyOf(CapturingInspector.STATEMENTS);
+        assertEquals(1, statements.size(), statements::toString);
+
+        String sql = statements.get(0);
+        Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        Arrays.fill(parameters, "probe");
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    private static AppUser user(String username, String email) {
+        AppUser user = new AppUser();
+        user.setUsername(username);
+        user.setPassword("hash");
+        user.setEmail(email);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        return user;
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.dzieger.security;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CollabriumApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthEventsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void authActivityIsRecordedWithTheBundledSettings() throws Exception {
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(Objects.requireNonNull(
+                getClass().getResourceAsStream("/jfr/collabrium.jfc")), StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+
+        Path dump = tempDir.resolve("auth.jfr");
+        try (Recording recording = new Recording(configuration)) {
+            recording.enable("com.dzieger.TokenVerified").withoutThreshold();
+            recording.start();
+
+            String token = login();
+            mockMvc.perform(get("/secure/data").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+            mockMvc.perform(post("/auth/logout").contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(Map.of("token", token))))
+                    .andExpect(status().isOk());
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        assertEquals("success", outcomeOf(events, "com.dzieger.PasswordChecked"));
+        assertEquals("success", outcomeOf(events, "com.dzieger.UserLoaded"));
+        assertEquals("success", outcomeOf(events, "com.dzieger.TokenIssued"));
+        assertEquals("success", outcomeOf(events, "com.dzieger.TokenVerified"));
+        assertEquals("success", outcomeOf(events, "com.dzieger.TokenVersionBumped"));
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("com.dzieger.TokenVerified")
+                && "jjwt".equals(event.getString("source"))));
+    }
+
+    private static String outcomeOf(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .map(event -> event.getString("outcome"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event recorded"));
+    }
+
+    private String login() throws Exception {
+        String body = mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", "admin", "password", "password"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+}
@@ -0,0 +1,72 @@
+package com.dzieger.security;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CollabriumApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class AuthMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void authPhasesAreExposedByOutcome() throws Exception {
+        String token = login("admin", "password");
+
+        mockMvc.perform(get("/secure/data").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/secure/data").header("Authorization", "Bearer not-a-token"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", "admin", "password", "wrong"))))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("collabrium_auth_login_seconds_count{outcome=\"success\"}")))
+                .andExpect(content().string(containsString("collabrium_auth_login_seconds_count{outcome=\"bad-credentials\"}")))
+                .andExpect(content().string(containsString("collabrium_auth_filter_seconds_count{outcome=\"success\"}")))
+                .andExpect(content().string(containsString("collabrium_auth_filter_seconds_count{outcome=\"invalid\"}")))
+                .andExpect(content().string(containsString("collabrium_auth_user_lookup_seconds_count{outcome=\"success\"}")))
+                .andExpect(content().string(containsString("collabrium_jwt_verify_seconds_count{outcome=\"success\"}")))
+                .andExpect(content().string(containsString("collabrium_token_version_cache_total{result=\"hit\"}")));
+
+        mockMvc.perform(get("/actuator/metrics/collabrium.auth.password.check"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics/collabrium.auth.password.check")
+                        .header("Authorization", "Bearer " + login("admin", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableTags[0].tag").value("outcome"));
+    }
+
+    private String login(String username, String password) throws Exception {
+        String body = mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", username, "password", password))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+}
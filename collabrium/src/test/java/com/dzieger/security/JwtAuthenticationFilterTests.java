@@ -0,0 +1,119 @@
+package com.dzieger.security;
+
+import com.dzieger.models.AuthPrincipalView;
+import com.dzieger.repositories.UserRepository;
+import com.dzieger.services.AuthService;
+import com.dzieger.services.CustomUserDetails;
+import com.dzieger.services.ReadYourWrites;
+import com.dzieger.services.RoleRegistry;
+import com.dzieger.services.TokenVersionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class JwtAuthenticationFilterTests {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SigningKeyRing ring = new SigningKeyRing("", "", "PKCS12", "", 0, "HS256");
+    private final RoleAuthorities roleAuthorities = new RoleAuthorities();
+    private final JwtUtil jwtUtil = new JwtUtil(ring, roleAuthorities, meterRegistry);
+    private final TokenVerifier tokenVerifier = new TokenVerifier(jwtUtil, ring, meterRegistry, 64);
+    private final TokenVersionRegistry tokenVersionRegistry =
+            new TokenVersionRegistry(mock(UserRepository.class), new ReadYourWrites("", 0), 100, 60_000);
+    private final AtomicInteger userLoads = new AtomicInteger();
+    private final UUID userId = UUID.randomUUID();
+    private final String token;
+
+    JwtAuthenticationFilterTests() {
+        roleAuthorities.update(List.of(new RoleRegistry.RoleInfo(0, UUID.randomUUID(), "ADMIN"),
+                new RoleRegistry.RoleInfo(1, UUID.randomUUID(), "USER")));
+        tokenVersionRegistry.update(userId, 0);
+        token = jwtUtil.generateToken(userId, "alice", 0, List.of(new SimpleGrantedAuthority("USER")));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void publicPathsSkipTheFilter() throws Exception {
+        JwtAuthenticationFilter filter = filter(true);
+
+        for (String path : List.of("/auth/login", "/api/public/info", "/.well-known/jwks.json")) {
+            assertNull(authenticate(filter, path), path);
+        }
+        assertEquals(0, meterRegistry.get("collabrium.auth.filter").timers().stream().mapToLong(timer -> timer.count()).sum());
+        assertEquals(0, meterRegistry.get("collabrium.jwt.verify.cache").counters().stream().mapToDouble(counter -> counter.count()).sum());
+
+        assertInstanceOf(AuthPrincipal.class, authenticate(filter, "/secure/data").getPrincipal());
+    }
+
+    @Test
+    void statelessPrincipalComesFromTheTokenWithoutLoadingTheUser() throws Exception {
+        Authentication authentication = authenticate(filter(true), "/secure/data");
+
+        AuthPrincipal principal = assertInstanceOf(AuthPrincipal.class, authentication.getPrincipal());
+        assertEquals(userId, principal.userId());
+        assertEquals("alice", principal.getName());
+        assertEquals(Set.of(new SimpleGrantedAuthority("USER")), Set.copyOf(principal.authorities()));
+        assertEquals(Set.of(new SimpleGrantedAuthority("USER")), Set.copyOf(authentication.getAuthorities()));
+        assertEquals(0, userLoads.get());
+    }
+
+    @Test
+    void userDetailsPrincipalWhenStatelessPrincipalIsOff() throws Exception {
+        Authentication authentication = authenticate(filter(false), "/secure/data");
+
+        CustomUserDetails principal = assertInstanceOf(CustomUserDetails.class, authentication.getPrincipal());
+        assertEquals(userId, principal.getId());
+        assertEquals("alice", principal.getUsername());
+        assertEquals(Set.of(new SimpleGrantedAuthority("USER")), Set.copyOf(authentication.getAuthorities()));
+        assertEquals(1, userLoads.get());
+    }
+
+    private JwtAuthenticationFilter filter(boolean statelessPrincipal) {
+        UserDetailsService userDetailsService = username -> {
+            userLoads.incrementAndGet();
+            return new CustomUserDetails(new AuthPrincipalView(userId, username, "hash", 0, List.of("USER")),
+                    roleAuthorities.forNames(List.of("USER")));
+        };
+        return new JwtAuthenticationFilter(jwtUtil, tokenVerifier, tokenVersionRegistry, userDetailsService,
+                mock(AuthService.class), meterRegistry, statelessPrincipal);
+    }
+
+    /**
+     * Runs the filter and returns the authentication the rest of the chain would have seen.
+     */
+    private Authentication authenticate(JwtAuthenticationFilter filter, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.addHeader("Authorization", "Bearer " + token);
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(),
+                    (req, res) -> seen.set(SecurityContextHolder.getContext().getAuthentication()));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return seen.get();
+    }
+}
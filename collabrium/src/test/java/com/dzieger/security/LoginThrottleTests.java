@@ -0,0 +1,110 @@
+package com.dzieger.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoginThrottleTests {
+
+    private static final String IP = "10.0.0.1";
+
+    private final long t0 = System.nanoTime();
+
+    @Test
+    void attemptsPastTheBurstAreRejectedWithRetryAfter() {
+        // Three attempts, then one more every ten seconds
+        LoginThrottle throttle = new LoginThrottle(3, 6, 100, 6_000, 100_000);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, throttle.tryAcquire("alice", IP, t0));
+        }
+        assertEquals(10, throttle.tryAcquire("alice", IP, t0));
+        // Other accounts have buckets of their own
+        assertEquals(0, throttle.tryAcquire("bob", IP, t0));
+
+        assertEquals(6, throttle.tryAcquire("alice", IP, t0 + seconds(4)));
+        assertEquals(1, throttle.tryAcquire("alice", IP, t0 + seconds(9) + 1));
+        assertEquals(3, throttle.getRejectionCount());
+    }
+
+    @Test
+    void caseVariantsOfAUsernameShareOneBucket() {
+        LoginThrottle throttle = new LoginThrottle(3, 6, 100, 6_000, 100_000);
+
+        assertEquals(0, throttle.tryAcquire("Admin", IP, t0));
+        assertEquals(0, throttle.tryAcquire("aDmin", IP, t0));
+        assertEquals(0, throttle.tryAcquire("ADMIN", IP, t0));
+        assertEquals(10, throttle.tryAcquire("admin", IP, t0));
+        assertEquals(10, throttle.tryAcquire("AdMiN", IP, t0));
+    }
+
+    @Test
+    void bucketsRefillOverTime() {
+        LoginThrottle throttle = new LoginThrottle(2, 60, 100, 6_000, 100_000);
+
+        assertEquals(0, throttle.tryAcquire("alice", IP, t0));
+        assertEquals(0, throttle.tryAcquire("alice", IP, t0));
+        assertEquals(1, throttle.tryAcquire("alice", IP, t0));
+
+        assertEquals(0, throttle.tryAcquire("alice", IP, t0 + seconds(1)));
+        assertEquals(1, throttle.tryAcquire("alice", IP, t0 + seconds(1)));
+
+        // Idle long enough to be full again, but never beyond capacity
+        long later = t0 + seconds(60);
+        assertEquals(0, throttle.tryAcquire("alice", IP, later));
+        assertEquals(0, throttle.tryAcquire("alice", IP, later));
+        assertEquals(1, throttle.tryAcquire("alice", IP, later));
+    }
+
+    @Test
+    void clientIpIsLimitedAcrossUsernames() {
+        LoginThrottle throttle = new LoginThrottle(100, 6_000, 2, 6, 100_000);
+
+        assertEquals(0, throttle.tryAcquire("alice", IP, t0));
+        assertEquals(0, throttle.tryAcquire("bob", IP, t0));
+        assertEquals(10, throttle.tryAcquire("carol", IP, t0));
+        assertEquals(0, throttle.tryAcquire("carol", "10.0.0.2", t0));
+    }
+
+    @Test
+    void ipTokenIsRefundedWhenTheUsernameIsRejected() {
+        LoginThrottle throttle = new LoginThrottle(1, 1, 3, 1, 100_000);
+
+        assertEquals(0, throttle.tryAcquire("alice", IP, t0));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(60, throttle.tryAcquire("alice", IP, t0));
+        }
+        // Only alice's successful attempt counted against the IP
+        assertEquals(0, throttle.tryAcquire("bob", IP, t0));
+        assertEquals(0, throttle.tryAcquire("carol", IP, t0));
+        assertEquals(60, throttle.tryAcquire("dave", IP, t0));
+    }
+
+    @Test
+    void sweepDropsRefilledBucketsToMakeRoom() {
+        // One bucket per stripe; "a@" and "b!" share a hash code and so a stripe
+        LoginThrottle throttle = new LoginThrottle(1, 60, 100, 6_000, 32);
+
+        assertEquals(0, throttle.tryAcquire("a@", IP, t0));
+        assertEquals(2, throttle.size());
+
+        // a@ is still refilling, so b! cannot take its place and is let through untracked
+        assertEquals(0, throttle.tryAcquire("b!", IP, t0));
+        assertEquals(0, throttle.tryAcquire("b!", IP, t0));
+        assertEquals(2, throttle.getUntrackedCount());
+        assertEquals(2, throttle.size());
+
+        // Once a@ has refilled the sweep drops it and b! is tracked from then on
+        long refilled = t0 + seconds(1);
+        assertEquals(0, throttle.tryAcquire("b!", IP, refilled));
+        assertEquals(2, throttle.getUntrackedCount());
+        assertEquals(1, throttle.tryAcquire("b!", IP, refilled));
+        assertEquals(2, throttle.size());
+    }
+
+    private static long seconds(long seconds) {
+        return TimeUnit.SECONDS.toNanos(seconds);
+    }
+}
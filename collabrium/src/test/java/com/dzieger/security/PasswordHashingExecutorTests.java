@@ -0,0 +1,107 @@
+package com.dzieger.security;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.dzieger.exceptions.ServiceBusyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CollabriumApplication.class, properties = {
+        "collabrium.security.hashing.pool-size=1",
+        "collabrium.security.hashing.queue-capacity=1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PasswordHashingExecutorTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void encodeAndMatchesDelegateToBCrypt() {
+        assertInstanceOf(OffloadingPasswordEncoder.class, passwordEncoder);
+
+        String hash = passwordEncoder.encode("secret");
+        assertTrue(hash.startsWith("$2a$"), hash);
+        assertNotEquals(hash, passwordEncoder.encode("secret"));
+        assertTrue(passwordEncoder.matches("secret", hash));
+        assertFalse(passwordEncoder.matches("Secret", hash));
+    }
+
+    @Test
+    void saturatedHashingPoolAnswersServiceUnavailableWithRetryAfter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> blockers = new ArrayList<>();
+        try {
+            // One task on the only worker, then one in the queue
+            blockers.add(blockHashingUntil(release));
+            await().atMost(Duration.ofSeconds(5)).until(() -> gauge("collabrium.password.hashing.active") == 1);
+            blockers.add(blockHashingUntil(release));
+            await().atMost(Duration.ofSeconds(5)).until(() -> gauge("collabrium.password.hashing.queue.depth") == 1);
+
+            assertThrows(ServiceBusyException.class, () -> passwordEncoder.encode("secret"));
+            mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(Map.of("username", "admin", "password", "password"))))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(jsonPath("$.error").value("Service busy"));
+        } finally {
+            release.countDown();
+            for (Thread blocker : blockers) {
+                blocker.join();
+            }
+        }
+
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", "admin", "password", "password"))))
+                .andExpect(status().isOk());
+    }
+
+    private Thread blockHashingUntil(CountDownLatch release) {
+        return Thread.ofPlatform().start(() -> passwordHashingExecutor.execute(() -> {
+            release.await();
+            return null;
+        }));
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+}
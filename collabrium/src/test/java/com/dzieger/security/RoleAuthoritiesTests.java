@@ -0,0 +1,96 @@
+package com.dzieger.security;
+
+import com.dzieger.exceptions.InvalidTokenException;
+import com.dzieger.services.RoleRegistry;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoleAuthoritiesTests {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SigningKeyRing ring = new SigningKeyRing("", "", "PKCS12", "", 0, "HS256");
+    private final RoleAuthorities roleAuthorities = new RoleAuthorities();
+    private final JwtUtil jwtUtil = new JwtUtil(ring, roleAuthorities, meterRegistry);
+    private final TokenVerifier verifier = new TokenVerifier(jwtUtil, ring, meterRegistry, 16);
+
+    RoleAuthoritiesTests() {
+        roleAuthorities.update(List.of(role(0, "ADMIN"), role(1, "USER")));
+    }
+
+    @Test
+    void rolesTravelAsABitmaskAndResolveToOneSharedSet() {
+        List<SimpleGrantedAuthority> granted = List.of(new SimpleGrantedAuthority("USER"), new SimpleGrantedAuthority("ADMIN"));
+        String first = jwtUtil.generateToken(UUID.randomUUID(), "alice", 0, granted);
+        String second = jwtUtil.generateToken(UUID.randomUUID(), "bob", 0, granted);
+
+        String payload = payloadOf(first);
+        assertTrue(payload.contains("\"roles\":3"), payload);
+        assertFalse(payload.contains("\"authorities\""), payload);
+
+        Set<?> authorities = verifier.verify(first).getAuthorities();
+        assertEquals(Set.copyOf(granted), authorities);
+        assertSame(authorities, verifier.verify(second).getAuthorities());
+        assertSame(authorities, jwtUtil.verify(second).getAuthorities());
+        assertSame(authorities, roleAuthorities.forNames(List.of("ADMIN", "USER")));
+    }
+
+    @Test
+    void namedAuthoritiesStillVerify() {
+        String legacy = Jwts.builder()
+                .setHeaderParam("kid", ring.activeKey().kid())
+                .setSubject("carol")
+                .claim("userId", UUID.randomUUID().toString())
+                .claim("authorities", List.of("USER"))
+                .claim("tokenVersion", 0)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(ring.activeKey().signingKey(), ring.activeKey().algorithm())
+                .compact();
+        assertSame(roleAuthorities.forMask(2), verifier.verify(legacy).getAuthorities());
+
+        String uncoded = jwtUtil.generateToken(UUID.randomUUID(), "dave", 0, List.of(new SimpleGrantedAuthority("AUDITOR")));
+        assertTrue(payloadOf(uncoded).contains("\"authorities\":[\"AUDITOR\"]"));
+        assertEquals(Set.of(new SimpleGrantedAuthority("AUDITOR")), verifier.verify(uncoded).getAuthorities());
+    }
+
+    @Test
+    void unknownRoleCodesReloadOnceAndAreRejectedIfStillUnknown() {
+        RoleAuthorities issuerRoles = new RoleAuthorities();
+        issuerRoles.update(List.of(role(0, "ADMIN"), role(1, "USER"), role(2, "AUDITOR")));
+        JwtUtil issuer = new JwtUtil(ring, issuerRoles, meterRegistry);
+        String token = issuer.generateToken(UUID.randomUUID(), "erin", 0, List.of(new SimpleGrantedAuthority("AUDITOR")));
+
+        AtomicInteger reloads = new AtomicInteger();
+        roleAuthorities.setReloader(reloads::incrementAndGet);
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(token));
+        assertTrue(reloads.get() > 0);
+
+        roleAuthorities.setReloader(() -> roleAuthorities.update(List.of(role(0, "ADMIN"), role(1, "USER"), role(2, "AUDITOR"))));
+        assertEquals(Set.of(new SimpleGrantedAuthority("AUDITOR")), verifier.verify(token).getAuthorities());
+    }
+
+    private static RoleRegistry.RoleInfo role(int code, String name) {
+        return new RoleRegistry.RoleInfo(code, UUID.randomUUID(), name);
+    }
+
+    private static String payloadOf(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,81 @@
+package com.dzieger.security;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CollabriumApplication.class, properties = "collabrium.observability.server-timing.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ServerTimingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void loginReportsLookupHashingAndSigning() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", "admin", "password", "password"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ServerTimingFilter.HEADER, allOf(containsString("db;dur="),
+                        containsString("bcrypt;dur="), containsString("sign;dur="), containsString("serialize;dur="),
+                        containsString("total;dur="), not(containsString("verify")))))
+                .andReturn().getResponse();
+
+        String token = objectMapper.readTree(response.getContentAsString()).get("token").asText();
+
+        mockMvc.perform(get("/secure/data").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ServerTimingFilter.HEADER, allOf(containsString("verify;dur="),
+                        containsString("total;dur="), not(containsString("bcrypt")))));
+    }
+
+    @Test
+    void headerIsWrittenForRejectedRequests() throws Exception {
+        mockMvc.perform(get("/secure/data").header("Authorization", "Bearer not-a-token"))
+                .andExpect(status().isForbidden())
+                .andExpect(header().string(ServerTimingFilter.HEADER, containsString("total;dur=")));
+    }
+
+    @Test
+    void virtualThreadsBorrowPooledInstances() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        Callable<ServerTiming> timedRequest = () -> {
+            ServerTiming timing = ServerTiming.begin(request);
+            timing.end(request);
+            return timing;
+        };
+
+        try (ExecutorService perRequestThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            ServerTiming first = perRequestThreads.submit(timedRequest).get();
+            assertSame(first, perRequestThreads.submit(timedRequest).get());
+        }
+        assertFalse(request.getAttributeNames().hasMoreElements());
+    }
+}
@@ -0,0 +1,96 @@
+package com.dzieger.security;
+
+import com.dzieger.exceptions.InvalidTokenException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SigningKeyRingTests {
+
+    private static final String PASSWORD = "changeit";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void tokensSignedByOneNodeVerifyOnAnotherDuringRotation() throws Exception {
+        Path keystore = tempDir.resolve("signing.p12");
+        writeKeystore(keystore, "k1", "k2");
+
+        SigningKeyRing nodeA = new SigningKeyRing(keystore.toString(), PASSWORD, "PKCS12", "k1", 0, "HS256");
+        SigningKeyRing nodeB = new SigningKeyRing(keystore.toString(), PASSWORD, "PKCS12", "k2", 0, "HS256");
+        JwtUtil jwtUtilA = new JwtUtil(nodeA, new RoleAuthorities(), meterRegistry);
+        JwtUtil jwtUtilB = new JwtUtil(nodeB, new RoleAuthorities(), meterRegistry);
+        TokenVerifier verifierB = new TokenVerifier(jwtUtilB, nodeB, meterRegistry, 64);
+
+        UUID userId = UUID.randomUUID();
+        String tokenFromA = jwtUtilA.generateToken(userId, "alice", 3, List.of(new SimpleGrantedAuthority("USER")));
+        String tokenFromB = jwtUtilB.generateToken(userId, "alice", 3, List.of(new SimpleGrantedAuthority("USER")));
+
+        assertEquals("alice", verifierB.verify(tokenFromA).getSubject());
+        assertEquals(userId, verifierB.verify(tokenFromB).getUserId());
+        assertEquals(3, jwtUtilB.verify(tokenFromA).getTokenVersion());
+        assertEquals(Set.of(new SimpleGrantedAuthority("USER")), jwtUtilA.verify(tokenFromB).getAuthorities());
+    }
+
+    @Test
+    void tokensFromRetiredOrUnknownKeysAreRejected() throws Exception {
+        Path keystore = tempDir.resolve("signing.p12");
+        writeKeystore(keystore, "k1", "k2");
+
+        SigningKeyRing ring = new SigningKeyRing(keystore.toString(), PASSWORD, "PKCS12", "", 0, "HS256");
+        JwtUtil jwtUtil = new JwtUtil(ring, new RoleAuthorities(), meterRegistry);
+        TokenVerifier verifier = new TokenVerifier(jwtUtil, ring, meterRegistry, 64);
+
+        String retiring = jwtUtil.generateToken(UUID.randomUUID(), "bob", 0, List.of());
+        assertEquals("bob", verifier.verify(retiring).getSubject());
+
+        writeKeystore(keystore, "k2", "k3");
+        Files.setLastModifiedTime(keystore, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        ring.reload();
+
+        assertEquals("k3", ring.activeKey().kid());
+        String current = jwtUtil.generateToken(UUID.randomUUID(), "bob", 1, List.of());
+        assertEquals(1, verifier.verify(current).getTokenVersion());
+
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(retiring));
+        assertThrows(InvalidTokenException.class, () -> jwtUtil.verify(retiring));
+
+        SigningKeyRing unconfigured = new SigningKeyRing("", "", "PKCS12", "", 0, "HS256");
+        String foreign = new JwtUtil(unconfigured, new RoleAuthorities(), meterRegistry).generateToken(UUID.randomUUID(), "bob", 0, List.of());
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(foreign));
+    }
+
+    private static void writeKeystore(Path path, String... kids) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        SecureRandom random = new SecureRandom();
+        KeyStore.PasswordProtection protection = new KeyStore.PasswordProtection(PASSWORD.toCharArray());
+        for (String kid : kids) {
+            byte[] secret = new byte[32];
+            random.nextBytes(secret);
+            keyStore.setEntry(kid, new KeyStore.SecretKeyEntry(new SecretKeySpec(secret, "HmacSHA256")), protection);
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+    }
+}
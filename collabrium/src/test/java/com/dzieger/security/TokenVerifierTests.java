@@ -0,0 +1,221 @@
+package com.dzieger.security;
+
+import com.dzieger.exceptions.InvalidTokenException;
+import com.dzieger.exceptions.TokenExpiredException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class TokenVerifierTests {
+
+    private static final int TOKENS = 256;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SigningKeyRing ring = new SigningKeyRing("", "", "PKCS12", "", 0, "HS256");
+    private final JwtUtil jwtUtil = new JwtUtil(ring, new RoleAuthorities(), meterRegistry);
+    private final TokenVerifier verifier = new TokenVerifier(jwtUtil, ring, meterRegistry, 64);
+
+    @Test
+    void tamperedSignaturePayloadOrHeaderIsRejected() {
+        String token = jwtUtil.generateToken(UUID.randomUUID(), "alice", 0, List.of());
+        String[] parts = token.split("\\.");
+        assertEquals("alice", verifier.verify(token).getSubject());
+
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(tamper(token)));
+
+        String payload = decode(parts[1]).replace("\"alice\"", "\"admin\"");
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(parts[0] + "." + encode(payload) + "." + parts[2]));
+
+        // Still names the same HS256 key, so the fast path checks it and the signature no longer matches
+        String header = "{\"alg\":\"HS256\",\"kid\":\"" + ring.activeKey().kid() + "\"}";
+        assertNotEquals(parts[0], encode(header));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(encode(header) + "." + parts[1] + "." + parts[2]));
+
+        assertEquals(0, parseCount());
+    }
+
+    @Test
+    void unsignedAndNonHs256TokensFallBackToJjwt() {
+        String claims = "{\"sub\":\"alice\",\"userId\":\"" + UUID.randomUUID() + "\",\"tokenVersion\":0,\"exp\":"
+                + (System.currentTimeMillis() / 1000 + 60) + "}";
+        String unsigned = encode("{\"alg\":\"none\"}") + "." + encode(claims) + ".";
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(unsigned));
+        String noneWithKid = encode("{\"alg\":\"none\",\"kid\":\"" + ring.activeKey().kid() + "\"}") + "." + encode(claims) + ".";
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(noneWithKid));
+        assertEquals(2, parseCount());
+
+        SigningKeyRing rsaRing = new SigningKeyRing("", "", "PKCS12", "", 0, "RS256");
+        JwtUtil rsaJwtUtil = new JwtUtil(rsaRing, new RoleAuthorities(), meterRegistry);
+        TokenVerifier rsaVerifier = new TokenVerifier(rsaJwtUtil, rsaRing, meterRegistry, 64);
+        String rs256 = rsaJwtUtil.generateToken(UUID.randomUUID(), "bob", 2, List.of());
+        assertEquals(2, rsaVerifier.verify(rs256).getTokenVersion());
+        assertEquals(3, parseCount());
+    }
+
+    @Test
+    void expiredTokensAreRejectedAndCachedEntriesDropAtExpiry() throws Exception {
+        long now = System.currentTimeMillis();
+        String expired = jwt("alice", new Date(now - 5_000));
+        assertThrows(TokenExpiredException.class, () -> verifier.verify(expired));
+
+        // exp has second precision, so this expires on the next whole second after at least one more
+        Date expiresAt = new Date((now / 1000 + 2) * 1000);
+        String expiring = jwt("alice", expiresAt);
+        assertEquals("alice", verifier.verify(expiring).getSubject());
+        assertEquals("alice", verifier.verify(expiring).getSubject());
+        assertEquals(1, cacheCount("hit"));
+
+        Thread.sleep(expiresAt.getTime() - System.currentTimeMillis() + 50);
+        assertThrows(TokenExpiredException.class, () -> verifier.verify(expiring));
+        assertEquals(1, cacheCount("hit"));
+    }
+
+    @Test
+    void evictSubjectDropsCachedTokensOfThatSubjectOnly() {
+        String alice = jwtUtil.generateToken(UUID.randomUUID(), "alice", 0, List.of());
+        String bob = jwtUtil.generateToken(UUID.randomUUID(), "bob", 0, List.of());
+        verifier.verify(alice);
+        verifier.verify(bob);
+        assertEquals(2, cacheCount("miss"));
+
+        // As AuthService does after bumping alice's tokenVersion
+        verifier.evictSubject("alice");
+        verifier.verify(alice);
+        verifier.verify(bob);
+        assertEquals(3, cacheCount("miss"));
+        assertEquals(1, cacheCount("hit"));
+    }
+
+    @Test
+    void malformedEncodingOrJsonIsInvalidRatherThanAnError() throws Exception {
+        long inAMinute = System.currentTimeMillis() / 1000 + 60;
+        String header = encode("{\"kid\":\"" + ring.activeKey().kid() + "\",\"alg\":\"HS256\"}");
+        String claims = encode("{\"sub\":\"alice\",\"userId\":\"" + UUID.randomUUID() + "\",\"tokenVersion\":0,\"exp\":" + inAMinute + "}");
+
+        List<String> malformed = List.of(
+                "",
+                "not-a-token",
+                "a.b.c.d",
+                "e30*." + claims + ".sig",
+                header + "." + claims + ".%%%",
+                header + "." + claims + "." + claims,
+                signed(header + ".e30*"),
+                signed(header + "." + claims.substring(0, claims.length() - 1)),
+                signed(header + "." + encode("{\"sub\":")),
+                signed(header + "." + encode("[1,2]")),
+                signed(header + "." + encode("{\"sub\":\"alice\",\"userId\":\"not-a-uuid\",\"tokenVersion\":0,\"exp\":" + inAMinute + "}")),
+                signed(header + "." + encode("{\"sub\":\"alice\",\"tokenVersion\":99999999999,\"exp\":" + inAMinute + "}")),
+                signed(encode("{\"kid\":") + "." + claims));
+        for (String token : malformed) {
+            assertThrows(InvalidTokenException.class, () -> verifier.verify(token), token);
+        }
+    }
+
+    @Test
+    void negativeRolesMaskIsRejectedByTheFastPathAndJjwtAlike() throws Exception {
+        long inAMinute = System.currentTimeMillis() / 1000 + 60;
+        String header = encode("{\"kid\":\"" + ring.activeKey().kid() + "\",\"alg\":\"HS256\"}");
+        String negative = signed(header + "." + encode("{\"sub\":\"alice\",\"userId\":\"" + UUID.randomUUID()
+                + "\",\"tokenVersion\":0,\"exp\":" + inAMinute + ",\"" + JwtUtil.ROLES_CLAIM + "\":-1}"));
+
+        InvalidTokenException fastPath = assertThrows(InvalidTokenException.class, () -> verifier.verify(negative));
+        InvalidTokenException jjwt = assertThrows(InvalidTokenException.class, () -> jwtUtil.verify(negative));
+        assertEquals(jjwt.getMessage(), fastPath.getMessage());
+        assertEquals(2, parseCount());
+    }
+
+    private String jwt(String subject, Date expiresAt) {
+        return Jwts.builder()
+                .setHeaderParam("kid", ring.activeKey().kid())
+                .setSubject(subject)
+                .claim("userId", UUID.randomUUID().toString())
+                .claim("tokenVersion", 0)
+                .setExpiration(expiresAt)
+                .signWith(ring.activeKey().signingKey(), ring.activeKey().algorithm())
+                .compact();
+    }
+
+    private String signed(String signingInput) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(ring.activeKey().signingKey());
+        byte[] signature = mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    private long parseCount() {
+        return meterRegistry.find("collabrium.jwt.parse").timers().stream().mapToLong(timer -> timer.count()).sum();
+    }
+
+    private double cacheCount(String result) {
+        return meterRegistry.get("collabrium.jwt.verify.cache").tag("result", result).counter().count();
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String segment) {
+        return new String(Base64.getUrlDecoder().decode(segment), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void fastPathVerifiesConcurrentlyFromVirtualThreads() throws Exception {
+        SigningKeyRing ring = new SigningKeyRing("", "", "PKCS12", "", 0, "HS256");
+        JwtUtil jwtUtil = new JwtUtil(ring, new RoleAuthorities(), meterRegistry);
+        // Smaller than the token set, so most calls miss the cache and go through the HMAC fast path
+        TokenVerifier verifier = new TokenVerifier(jwtUtil, ring, meterRegistry, 16);
+
+        UUID[] userIds = new UUID[TOKENS];
+        String[] tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            userIds[i] = UUID.randomUUID();
+            tokens[i] = jwtUtil.generateToken(userIds[i], "user-" + i, i, List.of(new SimpleGrantedAuthority("USER")));
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int task = 0; task < 64; task++) {
+                int offset = task;
+                futures.add(executor.submit(() -> {
+                    for (int n = 0; n < 200; n++) {
+                        int i = (offset * 31 + n) % TOKENS;
+                        VerifiedToken verifiedToken = verifier.verify(tokens[i]);
+                        assertEquals("user-" + i, verifiedToken.getSubject());
+                        assertEquals(userIds[i], verifiedToken.getUserId());
+
+                        String tampered = tamper(tokens[i]);
+                        assertThrows(InvalidTokenException.class, () -> verifier.verify(tampered));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    private static String tamper(String token) {
+        char[] chars = token.toCharArray();
+        int position = chars.length - 10;
+        chars[position] = chars[position] == 'A' ? 'B' : 'A';
+        return new String(chars);
+    }
+}
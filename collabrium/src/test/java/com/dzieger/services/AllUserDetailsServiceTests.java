@@ -0,0 +1,81 @@
+package com.dzieger.services;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.dzieger.models.AppUser;
+import com.dzieger.models.Role;
+import com.dzieger.models.UserRole;
+import com.dzieger.repositories.RoleRepository;
+import com.dzieger.repositories.UserRepository;
+import com.dzieger.repositories.UserRoleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = CollabriumApplication.class, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class AllUserDetailsServiceTests {
+
+    @Autowired
+    private AllUserDetailsService allUserDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void loadUserByUsernameUsesOneStatementRegardlessOfRoleSize() {
+        Role role = roleRepository.save(new Role("STATEMENT_COUNT"));
+        roleRegistry.refresh();
+
+        createUsers("few", role, 1);
+        createUsers("many", role, 50);
+
+        assertEquals(1, statementsFor("few-0"));
+        assertEquals(1, statementsFor("many-0"));
+
+        CustomUserDetails userDetails = (CustomUserDetails) allUserDetailsService.loadUserByUsername("many-0");
+        assertEquals("many-0", userDetails.getUsername());
+        assertEquals("STATEMENT_COUNT", userDetails.getAuthorities().iterator().next().getAuthority());
+    }
+
+    private long statementsFor(String username) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        allUserDetailsService.loadUserByUsername(username);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createUsers(String prefix, Role role, int count) {
+        for (int i = 0; i < count; i++) {
+            AppUser appUser = new AppUser();
+            appUser.setUsername(prefix + "-" + i);
+            appUser.setPassword("hash");
+            appUser.setEmail(prefix + "-" + i + "@example.com");
+            appUser.setFirstName("First");
+            appUser.setLastName("Last");
+            userRepository.save(appUser);
+
+            UserRole userRole = new UserRole();
+            userRole.setUser(appUser);
+            userRole.setRole(role);
+            userRoleRepository.save(userRole);
+        }
+    }
+}
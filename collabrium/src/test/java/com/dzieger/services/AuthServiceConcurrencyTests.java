@@ -0,0 +1,180 @@
+package com.dzieger.services;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.dzieger.exceptions.InvalidTokenException;
+import com.dzieger.models.AppUser;
+import com.dzieger.models.UserRole;
+import com.dzieger.models.DTOs.TokenDTO;
+import com.dzieger.repositories.RoleRepository;
+import com.dzieger.repositories.UserRepository;
+import com.dzieger.repositories.UserRoleRepository;
+import com.dzieger.security.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = CollabriumApplication.class)
+@ActiveProfiles("test")
+class AuthServiceConcurrencyTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthServiceConcurrencyTests.class);
+
+    private static final int THREADS = 16;
+    private static final int USERS = 32;
+    private static final int REFRESHES_PER_USER = 100;
+    private static final int CONTENDED_ROUNDS = 200;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Test
+    void parallelRefreshChainsAllSucceed() throws Exception {
+        List<AppUser> users = createUsers("chain", USERS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (AppUser user : users) {
+                futures.add(executor.submit(() -> {
+                    String token = tokenFor(user, 0);
+                    for (int i = 0; i < REFRESHES_PER_USER; i++) {
+                        try {
+                            token = authService.refresh(new TokenDTO(token)).getToken();
+                        } catch (Throwable e) {
+                            failures.add(e);
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        assertTrue(failures.isEmpty(), () -> "Refresh failed: " + failures.peek());
+        for (AppUser user : users) {
+            assertEquals(REFRESHES_PER_USER, userRepository.findTokenVersionById(user.getId()).orElseThrow());
+        }
+        logger.info("{} refreshes on {} threads in {} ms ({} ops/s)", USERS * REFRESHES_PER_USER, THREADS,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                (long) (USERS * REFRESHES_PER_USER / (elapsedNanos / 1e9)));
+    }
+
+    @Test
+    void concurrentRefreshesOfTheSameTokenHaveExactlyOneWinner() throws Exception {
+        AppUser user = createUsers("contended", 1).get(0);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        try {
+            for (int round = 0; round < CONTENDED_ROUNDS; round++) {
+                String token = tokenFor(user, round);
+                CountDownLatch ready = new CountDownLatch(1);
+                AtomicInteger winners = new AtomicInteger();
+
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    tasks.add(() -> {
+                        ready.await();
+                        try {
+                            authService.refresh(new TokenDTO(token));
+                            winners.incrementAndGet();
+                        } catch (InvalidTokenException e) {
+                            if (!(e.getCause() instanceof InvalidTokenException)) {
+                                unexpected.add(e);
+                            }
+                        } catch (Throwable e) {
+                            unexpected.add(e);
+                        }
+                        return null;
+                    });
+                }
+                List<Future<Void>> futures = new ArrayList<>();
+                for (Callable<Void> task : tasks) {
+                    futures.add(executor.submit(task));
+                }
+                ready.countDown();
+                for (Future<Void> future : futures) {
+                    future.get(1, TimeUnit.MINUTES);
+                }
+
+                assertEquals(1, winners.get(), "round " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failure: " + unexpected.peek());
+        assertEquals(CONTENDED_ROUNDS, userRepository.findTokenVersionById(user.getId()).orElseThrow());
+
+        InvalidTokenException stale = assertThrows(InvalidTokenException.class,
+                () -> authService.logout(new TokenDTO(tokenFor(user, 0))));
+        assertInstanceOf(InvalidTokenException.class, stale.getCause());
+    }
+
+    private String tokenFor(AppUser user, int tokenVersion) {
+        return jwtUtil.generateToken(user.getId(), user.getUsername(), tokenVersion,
+                List.of(new SimpleGrantedAuthority("USER")));
+    }
+
+    private List<AppUser> createUsers(String prefix, int count) {
+        List<AppUser> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AppUser appUser = new AppUser();
+            appUser.setUsername(prefix + "-" + i);
+            appUser.setPassword("hash");
+            appUser.setEmail(prefix + "-" + i + "@example.com");
+            appUser.setFirstName("First");
+            appUser.setLastName("Last");
+            users.add(userRepository.save(appUser));
+
+            UserRole userRole = new UserRole();
+            userRole.setUser(appUser);
+            userRole.setRole(roleRepository.getReferenceById(roleRegistry.requireByName("USER").id()));
+            userRoleRepository.save(userRole);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,94 @@
+package com.dzieger.services;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.dzieger.models.DTOs.AvailabilityDTO;
+import com.dzieger.models.DTOs.UserRegisterDTO;
+import com.dzieger.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CollabriumApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AvailabilityServiceTests {
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void checkReportsTakenUsernamesAndEmailsIgnoringCase() {
+        authService.register(new UserRegisterDTO("Avail", "secret", "avail@example.com", "Av", "Ail"));
+
+        AvailabilityDTO taken = availabilityService.check("AVAIL", "Avail@Example.com");
+        assertEquals(false, taken.getUsernameAvailable());
+        assertEquals(false, taken.getEmailAvailable());
+
+        AvailabilityDTO free = availabilityService.check("avail-2", "avail-2@example.com");
+        assertEquals(true, free.getUsernameAvailable());
+        assertEquals(true, free.getEmailAvailable());
+
+        AvailabilityDTO usernameOnly = availabilityService.check("admin", null);
+        assertEquals(false, usernameOnly.getUsernameAvailable());
+        assertNull(usernameOnly.getEmailAvailable());
+    }
+
+    @Test
+    void registrationsFromOtherInstancesAreStillRejected() {
+        // Inserted behind this instance's back, so its filters report the name as free
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> userRepository.insertIfAbsent(
+                UUID.randomUUID(), "elsewhere", "hash", "elsewhere@example.com", "Else", "Where"));
+        assertEquals(true, availabilityService.check("elsewhere", null).getUsernameAvailable());
+
+        IllegalArgumentException username = assertThrows(IllegalArgumentException.class, () -> authService.register(
+                new UserRegisterDTO("Elsewhere", "secret", "other@example.com", "Else", "Where")));
+        assertEquals("Register Failed - Username already taken", username.getMessage());
+
+        IllegalArgumentException email = assertThrows(IllegalArgumentException.class, () -> authService.register(
+                new UserRegisterDTO("elsewhere-2", "secret", "ELSEWHERE@example.com", "Else", "Where")));
+        assertEquals("Register Failed - Email already taken", email.getMessage());
+
+        // The failed registration taught the filters about the user
+        assertEquals(false, availabilityService.check("elsewhere", "elsewhere@example.com").getUsernameAvailable());
+    }
+
+    @Test
+    void availabilityEndpointAnswersForEitherOrBoth() throws Exception {
+        mockMvc.perform(get("/auth/availability").param("username", "Admin").param("email", "nobody@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(false))
+                .andExpect(jsonPath("$.emailAvailable").value(true));
+        mockMvc.perform(get("/auth/availability").param("username", "nobody"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(true))
+                .andExpect(jsonPath("$.emailAvailable").doesNotExist());
+        mockMvc.perform(get("/auth/availability"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,40 @@
+package com.dzieger.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+    private static final int INSERTIONS = 100_000;
+
+    @Test
+    void addedValuesAreAlwaysReportedAsPresent() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.add("user-" + i + "@example.com");
+        }
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(filter.mightContain("user-" + i + "@example.com"), "user-" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        assertFalse(filter.mightContain("anyone"));
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.add("member-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < INSERTIONS; i++) {
+            if (filter.mightContain("stranger-" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / INSERTIONS;
+        assertTrue(rate < 0.02, "false positive rate " + rate);
+    }
+}
@@ -0,0 +1,150 @@
+package com.dzieger.services;
+
+import com.dzieger.collabrium.CollabriumApplication;
+import com.dzieger.models.DTOs.LoginDTO;
+import com.dzieger.models.DTOs.UserRegisterDTO;
+import com.dzieger.repositories.RegistrationReservationRepository;
+import com.dzieger.repositories.UserRepository;
+import com.dzieger.security.PasswordHashingExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CollabriumApplication.class, properties = {
+        "collabrium.registration.mode=async",
+        "collabrium.registration.async.partitions=2",
+        "collabrium.registration.async.batch-size=10",
+        "collabrium.security.hashing.pool-size=1",
+        "collabrium.security.hashing.queue-capacity=1",
+        "collabrium.security.hashing.timeout-millis=60000",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}"
+})
+@EmbeddedKafka
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RegistrationQueueTests {
+
+    private static final int BURST = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RegistrationReservationRepository reservationRepository;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void registrationsAreAcceptedAtOnceAndPersistedByTheConsumers() throws Exception {
+        for (int i = 0; i < BURST; i++) {
+            register("burst" + i, "burst" + i + "@example.com")
+                    .andExpect(status().isAccepted())
+                    .andExpect(content().string("Register Accepted - Registration queued for user: burst" + i));
+        }
+
+        // Held by the reservations while the commands are still queued
+        register("BURST0", "other@example.com")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Register Failed - Username already taken"));
+        register("someone", "Burst1@Example.com")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Register Failed - Email already taken"));
+        register("", "blank@example.com")
+                .andExpect(status().isBadRequest());
+
+        await().atMost(Duration.ofSeconds(60)).until(() -> reservationRepository.count() == 0);
+        for (int i = 0; i < BURST; i++) {
+            assertTrue(userRepository.findByUsername("burst" + i).isPresent(), "burst" + i);
+        }
+
+        // Now held by the users themselves
+        register("burst0", "new@example.com")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Register Failed - Username already taken"));
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginDTO("burst7", "secret"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty());
+    }
+
+    @Test
+    void registrationsArePersistedWhileLoginsSaturateTheHashingExecutor() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> blockers = new ArrayList<>();
+        try {
+            // The only login hashing worker is busy and its queue is full
+            blockers.add(blockHashingUntil(release));
+            await().atMost(Duration.ofSeconds(5)).until(() -> gauge("collabrium.password.hashing.active") == 1);
+            blockers.add(blockHashingUntil(release));
+            await().atMost(Duration.ofSeconds(5)).until(() -> gauge("collabrium.password.hashing.queue.depth") == 1);
+
+            for (int i = 0; i < 5; i++) {
+                register("busy" + i, "busy" + i + "@example.com").andExpect(status().isAccepted());
+            }
+
+            // Well inside the blockers' hashing timeout, so the executor stays saturated throughout
+            await().atMost(Duration.ofSeconds(30)).until(() -> reservationRepository.count() == 0);
+            for (int i = 0; i < 5; i++) {
+                assertTrue(userRepository.findByUsername("busy" + i).isPresent(), "busy" + i);
+            }
+        } finally {
+            release.countDown();
+            for (Thread blocker : blockers) {
+                blocker.join();
+            }
+        }
+
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginDTO("busy3", "secret"))))
+                .andExpect(status().isOk());
+    }
+
+    private Thread blockHashingUntil(CountDownLatch release) {
+        return Thread.ofPlatform().start(() -> passwordHashingExecutor.execute(() -> {
+            release.await();
+            return null;
+        }));
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private ResultActions register(String username, String email) throws Exception {
+        return mockMvc.perform(post("/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserRegisterDTO(username, "secret", email, "Burst", "User"))));
+    }
+}
@@ -0,0 +1,61 @@
+package com.dzieger.services;
+
+import com.dzieger.models.Role;
+import com.dzieger.repositories.RoleRepository;
+import com.dzieger.security.RoleAuthorities;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoleRegistryTests {
+
+    private final RoleRepository roleRepository = mock(RoleRepository.class);
+    private final RoleAuthorities roleAuthorities = new RoleAuthorities();
+    private final List<Role> roles = new ArrayList<>(List.of(role("ADMIN", 0), role("USER", 1)));
+
+    RoleRegistryTests() {
+        when(roleRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(roles));
+    }
+
+    @Test
+    void unknownRoleIdsReloadAtMostOncePerInterval() throws Exception {
+        RoleRegistry registry = new RoleRegistry(roleRepository, roleAuthorities, new ReadYourWrites("", 0), 200);
+        registry.refresh();
+        UUID stale = UUID.randomUUID();
+
+        for (int i = 0; i < 100; i++) {
+            assertThrows(IllegalStateException.class, () -> registry.requireById(stale));
+            assertNull(roleAuthorities.forMask(1L << 5));
+        }
+        verify(roleRepository, times(1)).findAll();
+
+        // A role added through another instance is picked up by the first miss after the interval
+        Role auditor = role("AUDITOR", 2);
+        roles.add(auditor);
+        Thread.sleep(250);
+        assertEquals("AUDITOR", registry.requireById(auditor.getId()).name());
+        assertThrows(IllegalStateException.class, () -> registry.requireById(stale));
+        verify(roleRepository, times(2)).findAll();
+
+        // Explicit refreshes after writes are never held back
+        registry.refresh();
+        verify(roleRepository, times(3)).findAll();
+    }
+
+    private static Role role(String name, int code) {
+        Role role = new Role(name);
+        role.setId(UUID.randomUUID());
+        role.setCode(code);
+        return role;
+    }
+}
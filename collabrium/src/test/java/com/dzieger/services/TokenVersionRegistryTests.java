@@ -0,0 +1,104 @@
+package com.dzieger.services;
+
+import com.dzieger.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenVersionRegistryTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ReadYourWrites readYourWrites = new ReadYourWrites("", 0);
+
+    @Test
+    void versionsAreReloadedOnceOlderThanTheTtl() throws Exception {
+        TokenVersionRegistry registry = new TokenVersionRegistry(userRepository, readYourWrites, 100, 100);
+        UUID userId = UUID.randomUUID();
+        when(userRepository.findTokenVersionById(userId)).thenReturn(Optional.of(1), Optional.of(2));
+
+        assertEquals(1, registry.getTokenVersion(userId));
+        assertEquals(1, registry.getTokenVersion(userId));
+        verify(userRepository, times(1)).findTokenVersionById(userId);
+
+        Thread.sleep(150);
+        assertEquals(TokenVersionRegistry.NOT_CACHED, registry.getCachedTokenVersion(userId));
+        assertEquals(2, registry.getTokenVersion(userId));
+        verify(userRepository, times(2)).findTokenVersionById(userId);
+    }
+
+    @Test
+    void updateKeepsTheHighestVersion() {
+        TokenVersionRegistry registry = new TokenVersionRegistry(userRepository, readYourWrites, 100, 60_000);
+        UUID userId = UUID.randomUUID();
+
+        assertEquals(3, registry.update(userId, 3));
+        // A stale read racing a bump must not roll the version back
+        assertEquals(3, registry.update(userId, 2));
+        assertEquals(3, registry.getCachedTokenVersion(userId));
+        assertEquals(4, registry.update(userId, 4));
+
+        registry.invalidate(userId);
+        assertEquals(TokenVersionRegistry.NOT_CACHED, registry.getCachedTokenVersion(userId));
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvictedPastMaxEntries() throws Exception {
+        TokenVersionRegistry registry = new TokenVersionRegistry(userRepository, readYourWrites, 10, 60_000);
+        List<UUID> userIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            UUID userId = UUID.randomUUID();
+            userIds.add(userId);
+            registry.update(userId, i);
+            Thread.sleep(2);
+        }
+        // Touched last, so the first entry is no longer the least recently used
+        assertEquals(0, registry.getCachedTokenVersion(userIds.get(0)));
+        Thread.sleep(2);
+
+        UUID newest = UUID.randomUUID();
+        registry.update(newest, 10);
+
+        // Evicts down to 90% of max-entries: the two least recently used go
+        assertEquals(9, registry.size());
+        assertEquals(2, registry.getEvictionCount());
+        assertEquals(TokenVersionRegistry.NOT_CACHED, registry.getCachedTokenVersion(userIds.get(1)));
+        assertEquals(TokenVersionRegistry.NOT_CACHED, registry.getCachedTokenVersion(userIds.get(2)));
+        assertEquals(0, registry.getCachedTokenVersion(userIds.get(0)));
+        assertEquals(3, registry.getCachedTokenVersion(userIds.get(3)));
+        assertEquals(10, registry.getCachedTokenVersion(newest));
+    }
+
+    @Test
+    void hitsMissesAndEvictionsAreMetered() throws Exception {
+        TokenVersionRegistry registry = new TokenVersionRegistry(userRepository, readYourWrites, 2, 60_000);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        registry.bindTo(meterRegistry);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(userRepository.findTokenVersionById(first)).thenReturn(Optional.of(0));
+
+        registry.getTokenVersion(first);
+        registry.getTokenVersion(first);
+        registry.getTokenVersion(first);
+        Thread.sleep(2);
+        registry.update(second, 0);
+        Thread.sleep(2);
+        registry.update(UUID.randomUUID(), 0);
+
+        assertEquals(2, meterRegistry.get("collabrium.token.version.cache").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("collabrium.token.version.cache").tag("result", "miss").functionCounter().count());
+        assertEquals(2, meterRegistry.get("collabrium.token.version.cache.evictions").functionCounter().count());
+        assertEquals(1, meterRegistry.get("collabrium.token.version.cache.size").gauge().value());
+    }
+}
@@ -1 +0,0 @@
-CREATE SCHEMA IF NOT EXISTS collabrium;
\ No newline at end of file